@@ -0,0 +1,90 @@
+package com.fallengod.testament.services;
+
+/**
+ * Samples an index from fixed weights in constant time (Vose's alias method)
+ *
+ * Each column holds the probability of keeping its own index and the index it
+ * falls back to otherwise, so a draw is one column pick and one comparison.
+ * Both come from a single uniform value. Immutable once built.
+ */
+final class AliasSampler {
+
+    private final double[] probability;
+    private final int[] alias;
+
+    /**
+     * @throws IllegalArgumentException if the weights are empty, negative or all zero
+     */
+    AliasSampler(double[] weights) {
+        int n = weights.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("No weights given");
+        }
+        double total = 0;
+        for (double weight : weights) {
+            if (weight < 0 || Double.isNaN(weight) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("Invalid weight " + weight);
+            }
+            total += weight;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("Weights add up to zero");
+        }
+
+        probability = new double[n];
+        alias = new int[n];
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever is left is 1 up to rounding
+        while (largeCount > 0) {
+            int index = large[--largeCount];
+            probability[index] = 1.0;
+            alias[index] = index;
+        }
+        while (smallCount > 0) {
+            int index = small[--smallCount];
+            probability[index] = 1.0;
+            alias[index] = index;
+        }
+    }
+
+    /**
+     * Picks an index using one uniform value in [0, 1)
+     */
+    int sample(double uniform) {
+        double scaled = uniform * probability.length;
+        int column = (int) scaled;
+        if (column >= probability.length) {
+            column = probability.length - 1;
+        }
+        return scaled - column < probability[column] ? column : alias[column];
+    }
+
+    int size() {
+        return probability.length;
+    }
+}
@@ -0,0 +1,35 @@
+package com.fallengod.testament.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Stores each player as a compact binary record (see PlayerProgressCodec)
+ */
+public class BinaryPlayerDataStorage extends FilePlayerDataStorage {
+
+    public BinaryPlayerDataStorage(File folder, Logger logger) {
+        super(folder, ".dat", logger);
+    }
+
+    @Override
+    protected byte[] encode(PlayerProgressSnapshot snapshot) throws IOException {
+        return PlayerProgressCodec.encode(snapshot);
+    }
+
+    @Override
+    protected PlayerProgressSnapshot decode(UUID uuid, byte[] data) throws IOException {
+        PlayerProgressSnapshot snapshot = PlayerProgressCodec.decode(data);
+        if (!uuid.equals(snapshot.getUuid())) {
+            throw new IOException("Progress record for " + uuid + " contains data for " + snapshot.getUuid());
+        }
+        return snapshot;
+    }
+
+    @Override
+    public String getName() {
+        return "binary";
+    }
+}
@@ -2,18 +2,26 @@ package com.fallengod.testament.listeners;
 
 import com.fallengod.testament.FallenGodPlugin;
 import com.fallengod.testament.services.FragmentSpawningService;
+import java.util.EnumSet;
+import java.util.Set;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryOpenEvent;
 import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.event.world.ChunkUnloadEvent;
 
 /**
  * Handles chest interaction events for fragment spawning
+ * Also releases processed-chest marks of unloading chunks
  */
 public class ChestInteractionListener implements Listener {
     
+    // Inventories of block containers the drop table can list; ender chests are per player
+    private static final Set<InventoryType> CONTAINER_TYPES =
+        EnumSet.of(InventoryType.CHEST, InventoryType.BARREL, InventoryType.SHULKER_BOX);
+    
     private final FragmentSpawningService fragmentSpawningService;
     private final FallenGodPlugin plugin;
     
@@ -24,8 +32,8 @@ public class ChestInteractionListener implements Listener {
     
     @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
     public void onInventoryOpen(InventoryOpenEvent event) {
-        // Only handle chest-type inventories
-        if (event.getInventory().getType() != InventoryType.CHEST) {
+        // Only handle chests, barrels and shulker boxes
+        if (!CONTAINER_TYPES.contains(event.getInventory().getType())) {
             return;
         }
         
@@ -47,4 +55,9 @@ public class ChestInteractionListener implements Listener {
             plugin.getLogger().warning("Error handling chest interaction: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        fragmentSpawningService.onChunkUnload(event.getChunk());
+    }
+}
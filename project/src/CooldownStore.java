@@ -0,0 +1,282 @@
+package com.fallengod.testament.services;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Shared store for player and location cooldowns
+ *
+ * Entries live in one open-addressing table keyed by (space, two longs): a
+ * player cooldown uses its type as the space and the UUID bits as the key, a
+ * location cooldown uses its world's space and the packed block x/z. Expiry is
+ * driven by a min-heap of deadlines kept in parallel arrays, so checking,
+ * starting and expiring cooldowns does not allocate once the arrays have grown.
+ * Methods are synchronized; the store is normally used from the main thread.
+ */
+public class CooldownStore {
+
+    /**
+     * Kinds of per-player cooldown
+     */
+    public enum Type {
+        CHEST,
+        MOB
+    }
+
+    private static final int FIRST_WORLD_SPACE = Type.values().length;
+
+    // World name -> space id for location cooldowns
+    private final Map<String, Integer> worldSpaces = new HashMap<>();
+
+    // Hash table, linear probing; an expiry of 0 marks an empty slot
+    private int[] spaces = new int[64];
+    private long[] keysHi = new long[64];
+    private long[] keysLo = new long[64];
+    private long[] expiries = new long[64];
+    private int size;
+
+    // Min-heap of deadlines; stale entries (renewed or cleared cooldowns) are skipped when popped
+    private long[] heapExpiry = new long[64];
+    private int[] heapSpace = new int[64];
+    private long[] heapHi = new long[64];
+    private long[] heapLo = new long[64];
+    private int heapSize;
+
+    /**
+     * Starts (or restarts) a player's cooldown
+     */
+    public synchronized void start(Type type, UUID player, long durationMillis) {
+        put(type.ordinal(), player.getMostSignificantBits(), player.getLeastSignificantBits(), durationMillis);
+    }
+
+    /**
+     * Checks if a player's cooldown is still running
+     */
+    public synchronized boolean isActive(Type type, UUID player) {
+        return isActive(type.ordinal(), player.getMostSignificantBits(), player.getLeastSignificantBits());
+    }
+
+    /**
+     * Starts (or restarts) a cooldown on a block column
+     */
+    public synchronized void startLocation(String world, int x, int z, long durationMillis) {
+        put(worldSpace(world), packLocation(x, z), 0L, durationMillis);
+    }
+
+    /**
+     * Checks if a block column is still on cooldown
+     */
+    public synchronized boolean isLocationActive(String world, int x, int z) {
+        Integer space = worldSpaces.get(world);
+        return space != null && isActive(space, packLocation(x, z), 0L);
+    }
+
+    /**
+     * Gets the number of running cooldowns
+     */
+    public synchronized int size() {
+        expire(System.currentTimeMillis());
+        return size;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(expiries, 0L);
+        size = 0;
+        heapSize = 0;
+    }
+
+    private boolean isActive(int space, long hi, long lo) {
+        long now = System.currentTimeMillis();
+        expire(now);
+        int slot = find(space, hi, lo);
+        return slot >= 0 && expiries[slot] > now;
+    }
+
+    private void put(int space, long hi, long lo, long durationMillis) {
+        long now = System.currentTimeMillis();
+        expire(now);
+        if (durationMillis <= 0) {
+            return;
+        }
+
+        long expiry = now + durationMillis;
+        int slot = find(space, hi, lo);
+        if (slot >= 0) {
+            expiries[slot] = expiry;
+        } else {
+            if ((size + 1) * 2 > expiries.length) {
+                resize(expiries.length * 2);
+            }
+            insert(space, hi, lo, expiry);
+            size++;
+        }
+        push(expiry, space, hi, lo);
+    }
+
+    /**
+     * Drops every cooldown whose deadline has passed
+     */
+    private void expire(long now) {
+        while (heapSize > 0 && heapExpiry[0] <= now) {
+            long expiry = heapExpiry[0];
+            int space = heapSpace[0];
+            long hi = heapHi[0];
+            long lo = heapLo[0];
+            pop();
+
+            int slot = find(space, hi, lo);
+            // Only if it was not restarted with a later deadline
+            if (slot >= 0 && expiries[slot] == expiry) {
+                remove(slot);
+                size--;
+            }
+        }
+    }
+
+    private int worldSpace(String world) {
+        Integer space = worldSpaces.get(world);
+        if (space == null) {
+            space = FIRST_WORLD_SPACE + worldSpaces.size();
+            worldSpaces.put(world, space);
+        }
+        return space;
+    }
+
+    private static long packLocation(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    // --- hash table ---
+
+    private int slotFor(int space, long hi, long lo) {
+        long hash = hi * 0x9E3779B97F4A7C15L ^ lo * 0xC2B2AE3D27D4EB4FL ^ space * 0x165667B19E3779F9L;
+        hash ^= hash >>> 32;
+        return (int) hash & (expiries.length - 1);
+    }
+
+    private int find(int space, long hi, long lo) {
+        int mask = expiries.length - 1;
+        for (int slot = slotFor(space, hi, lo); expiries[slot] != 0; slot = (slot + 1) & mask) {
+            if (spaces[slot] == space && keysHi[slot] == hi && keysLo[slot] == lo) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(int space, long hi, long lo, long expiry) {
+        int mask = expiries.length - 1;
+        int slot = slotFor(space, hi, lo);
+        while (expiries[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        spaces[slot] = space;
+        keysHi[slot] = hi;
+        keysLo[slot] = lo;
+        expiries[slot] = expiry;
+    }
+
+    /**
+     * Removes a slot and shifts later entries of its probe run back (no tombstones)
+     */
+    private void remove(int slot) {
+        int mask = expiries.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (expiries[next] != 0) {
+            int home = slotFor(spaces[next], keysHi[next], keysLo[next]);
+            // Move it into the hole unless its home lies cyclically in (hole, next]
+            boolean homeBetween = hole <= next ? hole < home && home <= next : hole < home || home <= next;
+            if (!homeBetween) {
+                spaces[hole] = spaces[next];
+                keysHi[hole] = keysHi[next];
+                keysLo[hole] = keysLo[next];
+                expiries[hole] = expiries[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        expiries[hole] = 0;
+    }
+
+    private void resize(int capacity) {
+        int[] oldSpaces = spaces;
+        long[] oldHi = keysHi;
+        long[] oldLo = keysLo;
+        long[] oldExpiries = expiries;
+
+        spaces = new int[capacity];
+        keysHi = new long[capacity];
+        keysLo = new long[capacity];
+        expiries = new long[capacity];
+        for (int i = 0; i < oldExpiries.length; i++) {
+            if (oldExpiries[i] != 0) {
+                insert(oldSpaces[i], oldHi[i], oldLo[i], oldExpiries[i]);
+            }
+        }
+    }
+
+    // --- deadline heap ---
+
+    private void push(long expiry, int space, long hi, long lo) {
+        if (heapSize == heapExpiry.length) {
+            int capacity = heapSize * 2;
+            heapExpiry = Arrays.copyOf(heapExpiry, capacity);
+            heapSpace = Arrays.copyOf(heapSpace, capacity);
+            heapHi = Arrays.copyOf(heapHi, capacity);
+            heapLo = Arrays.copyOf(heapLo, capacity);
+        }
+
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapExpiry[parent] <= expiry) {
+                break;
+            }
+            moveHeap(parent, i);
+            i = parent;
+        }
+        setHeap(i, expiry, space, hi, lo);
+    }
+
+    private void pop() {
+        heapSize--;
+        if (heapSize == 0) {
+            return;
+        }
+
+        long expiry = heapExpiry[heapSize];
+        int space = heapSpace[heapSize];
+        long hi = heapHi[heapSize];
+        long lo = heapLo[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapExpiry[child + 1] < heapExpiry[child]) {
+                child++;
+            }
+            if (heapExpiry[child] >= expiry) {
+                break;
+            }
+            moveHeap(child, i);
+            i = child;
+        }
+        setHeap(i, expiry, space, hi, lo);
+    }
+
+    private void moveHeap(int from, int to) {
+        setHeap(to, heapExpiry[from], heapSpace[from], heapHi[from], heapLo[from]);
+    }
+
+    private void setHeap(int i, long expiry, int space, long hi, long lo) {
+        heapExpiry[i] = expiry;
+        heapSpace[i] = space;
+        heapHi[i] = hi;
+        heapLo[i] = lo;
+    }
+}
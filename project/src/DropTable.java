@@ -0,0 +1,264 @@
+package com.fallengod.testament.services;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.configuration.Configuration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.EntityType;
+
+import com.fallengod.testament.data.GodTypes;
+
+/**
+ * Compiled fragment drop rules
+ *
+ * The testament.fragments section of config.yml (chances, environment
+ * multipliers, fragment weights, bad luck protection and the drop_table
+ * section) is validated and
+ * flattened into arrays indexed by enum ordinal, so a roll is a few array
+ * reads instead of map lookups and scans. A table is never modified after it
+ * is loaded; reloading builds a new one and swaps the reference.
+ */
+public final class DropTable {
+
+    private static final String FRAGMENTS_PATH = "testament.fragments";
+    private static final String DROP_TABLE_PATH = FRAGMENTS_PATH + ".drop_table";
+    private static final double[] DEFAULT_FRAGMENT_WEIGHTS = {30, 20, 15, 13, 10, 7, 5};
+    private static final byte NO_GOD = -1;
+
+    private final double chestChance;
+    private final double baseMobChance;
+    // Indexed by EntityType ordinal
+    private final boolean[] mobEligible;
+    private final byte[] mobGod;
+    private final double[] mobChance;
+    private final boolean[] mobBoss;
+    // Indexed by World.Environment ordinal
+    private final double[] environmentMultipliers;
+    // Indexed by Material ordinal, 0 for containers that never hold fragments
+    private final double[] chestMultipliers;
+    // Indexed by the player's fragment mask for the god; sampled index 0 = fragment 1
+    private final AliasSampler[] fragmentNumbers;
+    private final double pityStep;
+    private final double pityMaxMultiplier;
+
+    private DropTable(double chestChance, double baseMobChance, boolean[] mobEligible, byte[] mobGod,
+                      double[] mobChance, boolean[] mobBoss, double[] environmentMultipliers,
+                      double[] chestMultipliers, AliasSampler[] fragmentNumbers, double pityStep,
+                      double pityMaxMultiplier) {
+        this.chestChance = chestChance;
+        this.baseMobChance = baseMobChance;
+        this.mobEligible = mobEligible;
+        this.mobGod = mobGod;
+        this.mobChance = mobChance;
+        this.mobBoss = mobBoss;
+        this.environmentMultipliers = environmentMultipliers;
+        this.chestMultipliers = chestMultipliers;
+        this.fragmentNumbers = fragmentNumbers;
+        this.pityStep = pityStep;
+        this.pityMaxMultiplier = pityMaxMultiplier;
+    }
+
+    /**
+     * Loads and compiles the drop rules of a config
+     * Unknown mob, material, god and environment names are logged and skipped.
+     * A config without a drop_table section uses the one from the default config.
+     * @throws IllegalArgumentException if a chance, multiplier or the fragment weights are invalid
+     */
+    public static DropTable load(Configuration config, Logger logger) {
+        double chestChance = readChance(config, FRAGMENTS_PATH + ".chest_spawn_chance", 0.02);
+        double baseMobChance = readChance(config, FRAGMENTS_PATH + ".mob_drop_chance", 0.001);
+
+        double[] fragmentWeights = DEFAULT_FRAGMENT_WEIGHTS;
+        List<Double> configuredWeights = config.getDoubleList(FRAGMENTS_PATH + ".fragment_weights");
+        if (!configuredWeights.isEmpty()) {
+            fragmentWeights = configuredWeights.stream().mapToDouble(Double::doubleValue).toArray();
+        }
+        if (fragmentWeights.length != 7) {
+            throw new IllegalArgumentException("Expected 7 fragment weights, got " + fragmentWeights.length);
+        }
+        double duplicateWeight = readMultiplier(config, FRAGMENTS_PATH + ".duplicate_weight", "duplicate_weight", 0.2);
+        AliasSampler[] fragmentNumbers = FragmentChances.fragmentNumberSamplers(fragmentWeights, duplicateWeight);
+
+        double pityStep = readMultiplier(config, FRAGMENTS_PATH + ".pity.step", "pity.step", 0.002);
+        double pityMaxMultiplier = readMultiplier(config, FRAGMENTS_PATH + ".pity.max_multiplier", "pity.max_multiplier", 2.0);
+
+        ConfigurationSection dropTable = config.getConfigurationSection(DROP_TABLE_PATH);
+        if (dropTable == null && config.getDefaults() != null) {
+            dropTable = config.getDefaults().getConfigurationSection(DROP_TABLE_PATH);
+        }
+        if (dropTable == null) {
+            throw new IllegalArgumentException("Missing " + DROP_TABLE_PATH + " section");
+        }
+
+        int mobCount = EntityType.values().length;
+        boolean[] mobEligible = new boolean[mobCount];
+        byte[] mobGod = new byte[mobCount];
+        double[] mobChance = new double[mobCount];
+        boolean[] mobBoss = new boolean[mobCount];
+        Arrays.fill(mobGod, NO_GOD);
+        Arrays.fill(mobChance, baseMobChance);
+
+        ConfigurationSection mobs = dropTable.getConfigurationSection("mobs");
+        if (mobs != null) {
+            for (String name : mobs.getKeys(false)) {
+                EntityType type = parseEnum(EntityType.class, name);
+                ConfigurationSection rule = mobs.getConfigurationSection(name);
+                if (type == null || rule == null) {
+                    logger.warning("Skipping drop table mob " + name + ": " + (type == null ? "unknown mob" : "expected a section"));
+                    continue;
+                }
+
+                int ordinal = type.ordinal();
+                mobEligible[ordinal] = true;
+                mobChance[ordinal] = baseMobChance * readMultiplier(rule, "multiplier", name);
+                mobBoss[ordinal] = rule.getBoolean("boss", false);
+                String god = rule.getString("god");
+                if (god != null) {
+                    int godIndex = GodTypes.indexOf(god);
+                    if (godIndex < 0) {
+                        logger.warning("Unknown god " + god + " for drop table mob " + name + ", it will drop random gods");
+                    } else {
+                        mobGod[ordinal] = (byte) godIndex;
+                    }
+                }
+            }
+        }
+
+        double[] environmentMultipliers = new double[World.Environment.values().length];
+        Arrays.fill(environmentMultipliers, 1.0);
+        ConfigurationSection environments = config.getConfigurationSection(FRAGMENTS_PATH + ".environment_multipliers");
+        if (environments != null) {
+            for (String name : environments.getKeys(false)) {
+                World.Environment environment = parseEnvironment(name);
+                if (environment == null) {
+                    logger.warning("Skipping unknown environment " + name + " in environment_multipliers");
+                    continue;
+                }
+                environmentMultipliers[environment.ordinal()] = readMultiplier(environments, name, name);
+            }
+        }
+
+        double[] chestMultipliers = new double[Material.values().length];
+        ConfigurationSection chests = dropTable.getConfigurationSection("chests");
+        if (chests != null) {
+            for (String name : chests.getKeys(false)) {
+                Material material = parseEnum(Material.class, name);
+                if (material == null) {
+                    logger.warning("Skipping unknown drop table container " + name);
+                    continue;
+                }
+                if (material == Material.ENDER_CHEST) {
+                    // Its inventory belongs to the player, not the block
+                    logger.warning("Skipping ENDER_CHEST in drop table containers, ender chests cannot hold fragments");
+                    continue;
+                }
+                chestMultipliers[material.ordinal()] = readMultiplier(chests, name, name);
+            }
+        }
+
+        return new DropTable(chestChance, baseMobChance, mobEligible, mobGod, mobChance, mobBoss,
+            environmentMultipliers, chestMultipliers, fragmentNumbers, pityStep, pityMaxMultiplier);
+    }
+
+    public double getChestChance() {
+        return chestChance;
+    }
+
+    public double getBaseMobChance() {
+        return baseMobChance;
+    }
+
+    public boolean canMobDrop(EntityType type) {
+        return mobEligible[type.ordinal()];
+    }
+
+    /**
+     * Gets the god a mob drops fragments of, or null if it drops a random god's
+     */
+    public String getMobGod(EntityType type) {
+        return GodTypes.nameOf(mobGod[type.ordinal()]);
+    }
+
+    /**
+     * Gets a mob's drop chance before environment and kill bonuses
+     */
+    public double getMobChance(EntityType type) {
+        return mobChance[type.ordinal()];
+    }
+
+    public boolean isBoss(EntityType type) {
+        return mobBoss[type.ordinal()];
+    }
+
+    public double getEnvironmentMultiplier(World.Environment environment) {
+        return environmentMultipliers[environment.ordinal()];
+    }
+
+    /**
+     * Gets a container's spawn chance multiplier, 0 if it never holds fragments
+     */
+    public double getChestMultiplier(Material material) {
+        return chestMultipliers[material.ordinal()];
+    }
+
+    /**
+     * Picks a fragment number (1-7) by weight from one uniform value in [0, 1)
+     * @param ownedMask the player's fragments of the god (bit 0 = fragment 1), weighed down as duplicates
+     */
+    public int rollFragmentNumber(double uniform, int ownedMask) {
+        return fragmentNumbers[ownedMask & (fragmentNumbers.length - 1)].sample(uniform) + 1;
+    }
+
+    /**
+     * Gets the chance multiplier for a player's pity counter
+     */
+    public double getPityMultiplier(int pity) {
+        return FragmentChances.pityMultiplier(pity, pityStep, pityMaxMultiplier);
+    }
+
+    private static double readChance(ConfigurationSection config, String path, double defaultValue) {
+        double chance = config.getDouble(path, defaultValue);
+        if (!(chance >= 0 && chance <= 1)) {
+            throw new IllegalArgumentException(path + " must be between 0 and 1, got " + chance);
+        }
+        return chance;
+    }
+
+    private static double readMultiplier(ConfigurationSection section, String path, String name) {
+        return readMultiplier(section, path, name, 1.0);
+    }
+
+    private static double readMultiplier(ConfigurationSection section, String path, String name, double defaultValue) {
+        double multiplier = section.getDouble(path, defaultValue);
+        if (!(multiplier >= 0) || Double.isInfinite(multiplier)) {
+            throw new IllegalArgumentException("Invalid multiplier " + multiplier + " for " + name);
+        }
+        return multiplier;
+    }
+
+    private static World.Environment parseEnvironment(String name) {
+        switch (name.toLowerCase()) {
+            case "overworld":
+                return World.Environment.NORMAL;
+            case "nether":
+                return World.Environment.NETHER;
+            case "end":
+            case "the_end":
+                return World.Environment.THE_END;
+            default:
+                return parseEnum(World.Environment.class, name);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String name) {
+        try {
+            return Enum.valueOf(type, name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.fallengod.testament;
 
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitTask;
 
@@ -11,12 +14,14 @@ import com.fallengod.testament.items.HeartOfFallenGod;
 import com.fallengod.testament.listeners.AltarInteractionListener;
 import com.fallengod.testament.listeners.ChestInteractionListener;
 import com.fallengod.testament.listeners.HeartEffectListener;
+import com.fallengod.testament.listeners.LootChestListener;
 import com.fallengod.testament.listeners.MobDeathListener;
 import com.fallengod.testament.listeners.PlayerDataSaveListener;
 import com.fallengod.testament.listeners.PlayerEventListener;
 import com.fallengod.testament.listeners.WorldGenerationListener;
 import com.fallengod.testament.services.AltarDetectionService;
 import com.fallengod.testament.services.AltarService;
+import com.fallengod.testament.services.CooldownStore;
 import com.fallengod.testament.services.FragmentSpawningService;
 import com.fallengod.testament.services.RewardService;
 import com.fallengod.testament.services.TestamentService;
@@ -36,7 +41,9 @@ public class FallenGodPlugin extends JavaPlugin {
     private FragmentSpawningService fragmentSpawningService;
     private RewardService rewardService;
     private HeartOfFallenGod heartOfFallenGod;
+    private HeartEffectListener heartEffectListener;
     private AltarDetectionService altarDetectionService;
+    private CooldownStore cooldownStore;
     
     // Scheduled tasks
     private BukkitTask autoSaveTask;
@@ -83,8 +90,11 @@ public class FallenGodPlugin extends JavaPlugin {
             
             // Save player data
             if (playerDataStore != null) {
-                playerDataStore.save();
-                getLogger().info("Saved player testament progress.");
+                if (playerDataStore.flushAndClose(30, TimeUnit.SECONDS)) {
+                    getLogger().info("Saved player testament progress.");
+                } else {
+                    getLogger().warning("Timed out saving player testament progress, some changes may be lost.");
+                }
             }
             
             // Cleanup services
@@ -106,7 +116,11 @@ public class FallenGodPlugin extends JavaPlugin {
         playerDataStore = new PlayerTestamentDataStore(this);
         try {
             playerDataStore.load();
-            getLogger().info("Loaded player testament progress.");
+            // Players already online (e.g. after /reload) never fire a pre-login
+            for (Player player : getServer().getOnlinePlayers()) {
+                playerDataStore.markOnline(player.getUniqueId());
+            }
+            getLogger().info("Player testament progress storage ready (" + playerDataStore.getStorage().getName() + ").");
         } catch (Exception e) {
             getLogger().warning("Failed to load player testament progress: " + e.getMessage());
         }
@@ -117,10 +131,11 @@ public class FallenGodPlugin extends JavaPlugin {
         altarDetectionService = new AltarDetectionService(this);
         
         // Services
+        cooldownStore = new CooldownStore();
         testamentService = new TestamentService(this, playerDataStore, fragmentManager);
         altarService = new AltarService(this, testamentService);
         altarPlacementManager = new AltarPlacementManager(this);
-        fragmentSpawningService = new FragmentSpawningService(this, fragmentManager, testamentService);
+        fragmentSpawningService = new FragmentSpawningService(this, fragmentManager, testamentService, cooldownStore);
         rewardService = new RewardService(this, heartOfFallenGod);
         
         getLogger().info("All services initialized successfully.");
@@ -131,12 +146,17 @@ public class FallenGodPlugin extends JavaPlugin {
             new PlayerEventListener(this, testamentService), this);
         getServer().getPluginManager().registerEvents(
             new AltarInteractionListener(this, altarService), this);
-        getServer().getPluginManager().registerEvents(
-            new ChestInteractionListener(this, fragmentSpawningService), this);
+        if ("loot".equalsIgnoreCase(getConfig().getString("testament.fragments.chest_mode", "open"))) {
+            getServer().getPluginManager().registerEvents(
+                new LootChestListener(this, fragmentSpawningService), this);
+        } else {
+            getServer().getPluginManager().registerEvents(
+                new ChestInteractionListener(this, fragmentSpawningService), this);
+        }
         getServer().getPluginManager().registerEvents(
             new MobDeathListener(this, fragmentSpawningService), this);
-        getServer().getPluginManager().registerEvents(
-            new HeartEffectListener(this, heartOfFallenGod), this);
+        heartEffectListener = new HeartEffectListener(this, heartOfFallenGod);
+        getServer().getPluginManager().registerEvents(heartEffectListener, this);
         getServer().getPluginManager().registerEvents(
             new PlayerDataSaveListener(playerDataStore, this), this);
         getServer().getPluginManager().registerEvents(
@@ -158,11 +178,13 @@ public class FallenGodPlugin extends JavaPlugin {
     
     private void startScheduledTasks() {
         // Auto-save every 2 minutes
-        autoSaveTask = getServer().getScheduler().runTaskTimerAsynchronously(this, () -> {
+        // Snapshots are taken on the main thread, the writes happen on the save queue,
+        // and the journal is compacted once they land
+        autoSaveTask = getServer().getScheduler().runTaskTimer(this, () -> {
             try {
                 if (playerDataStore != null) {
-                    playerDataStore.save();
-                    getLogger().fine("[AutoSave] Player testament progress saved.");
+                    playerDataStore.checkpoint();
+                    getLogger().fine("[AutoSave] Player testament progress queued for saving.");
                 }
             } catch (Exception e) {
                 getLogger().warning("Failed to autosave player testament progress: " + e.getMessage());
@@ -201,6 +223,10 @@ public class FallenGodPlugin extends JavaPlugin {
         return heartOfFallenGod;
     }
     
+    public HeartEffectListener getHeartEffectListener() {
+        return heartEffectListener;
+    }
+    
     public PlayerTestamentDataStore getPlayerDataStore() {
         return playerDataStore;
     }
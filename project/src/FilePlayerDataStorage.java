@@ -0,0 +1,113 @@
+package com.fallengod.testament.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Base for storage backends that keep one file per player
+ */
+public abstract class FilePlayerDataStorage implements PlayerDataStorage {
+
+    protected final File folder;
+    protected final Logger logger;
+    private final String extension;
+
+    protected FilePlayerDataStorage(File folder, String extension, Logger logger) {
+        this.folder = folder;
+        this.extension = extension;
+        this.logger = logger;
+    }
+
+    @Override
+    public PlayerProgressSnapshot load(UUID uuid) throws IOException {
+        File file = getPlayerFile(uuid);
+        if (!file.exists()) {
+            return null;
+        }
+        return decode(uuid, Files.readAllBytes(file.toPath()));
+    }
+
+    @Override
+    public void write(PlayerProgressSnapshot snapshot) throws IOException {
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+        AtomicFiles.write(getPlayerFile(snapshot.getUuid()).toPath(), encode(snapshot));
+    }
+
+    @Override
+    public void forEachPlayer(PlayerVisitor visitor) throws IOException {
+        if (!folder.isDirectory()) {
+            return;
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder.toPath(), "*" + extension)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                UUID uuid;
+                try {
+                    uuid = UUID.fromString(name.substring(0, name.length() - extension.length()));
+                } catch (IllegalArgumentException e) {
+                    logger.warning("Skipping unrecognised progress file: " + name);
+                    continue;
+                }
+                visitor.visit(uuid);
+            }
+        }
+    }
+
+    @Override
+    public Set<UUID> listPlayers() {
+        Set<UUID> players = new HashSet<>();
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(extension));
+        if (files == null) {
+            return players;
+        }
+
+        for (File file : files) {
+            String name = file.getName();
+            try {
+                players.add(UUID.fromString(name.substring(0, name.length() - extension.length())));
+            } catch (IllegalArgumentException e) {
+                logger.warning("Skipping unrecognised progress file: " + name);
+            }
+        }
+        return players;
+    }
+
+    @Override
+    public boolean hasAnyPlayer() throws IOException {
+        if (!folder.isDirectory()) {
+            return false;
+        }
+
+        // Stops at the first player file instead of listing the folder
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder.toPath(), "*" + extension)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    UUID.fromString(name.substring(0, name.length() - extension.length()));
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    // Not a player file, keep looking
+                }
+            }
+        }
+        return false;
+    }
+
+    protected File getPlayerFile(UUID uuid) {
+        return new File(folder, uuid + extension);
+    }
+
+    protected abstract byte[] encode(PlayerProgressSnapshot snapshot) throws IOException;
+
+    protected abstract PlayerProgressSnapshot decode(UUID uuid, byte[] data) throws IOException;
+}
@@ -0,0 +1,119 @@
+package com.fallengod.testament.services;
+
+/**
+ * Fragment chance formulas shared by the spawning service and the simulator
+ * Bukkit-free, so FragmentSimulator can run without a server.
+ */
+public final class FragmentChances {
+
+    /** Dimensions as seen by the chance formulas */
+    public static final int OVERWORLD = 0;
+    public static final int NETHER = 1;
+    public static final int THE_END = 2;
+    public static final int OTHER = 3;
+
+    /** Chance of a chest roll passing the extra rarity gate */
+    public static final double CHEST_RARITY_GATE = 0.33;
+    /** Chance of a non-boss mob roll passing the extra rarity gate */
+    public static final double MOB_RARITY_GATE = 0.3;
+    /** Chance of a mob without a god dropping a random god's fragment */
+    public static final double RANDOM_GOD_GATE = 0.1;
+
+    private static final double CHEST_CAP = 0.25;
+    private static final double MOB_CAP = 0.1;
+    private static final int FRAGMENT_MASKS = 1 << 7;
+
+    private FragmentChances() {
+    }
+
+    /**
+     * Gets the chance of a chest roll before the rarity gate
+     * @param baseChance chest_spawn_chance
+     * @param chestsOpened the player's chest opens, including this one
+     * @param pityMultiplier the player's bad luck bonus, see pityMultiplier
+     */
+    public static double chestChance(double baseChance, double environmentMultiplier, double containerMultiplier,
+                                     int dimension, int y, int chestsOpened, double pityMultiplier) {
+        double chance = baseChance * environmentMultiplier * containerMultiplier;
+
+        // Depth bonus
+        if (dimension == OVERWORLD && y < 0) {
+            double depthMultiplier = 1.0 + Math.abs(y) * 0.01;
+            chance *= Math.min(depthMultiplier, 2.0);
+        }
+
+        // Exploration bonus
+        if (chestsOpened > 100) {
+            double explorationBonus = 1.0 + Math.min((chestsOpened - 100) * 0.001, 0.5);
+            chance *= explorationBonus;
+        }
+
+        return Math.min(chance * pityMultiplier, CHEST_CAP);
+    }
+
+    /**
+     * Gets the chance of a mob roll before the rarity gate
+     * @param mobChance mob_drop_chance times the mob's multiplier
+     * @param killCount the player's kills of this mob, including this one
+     * @param pityMultiplier the player's bad luck bonus, see pityMultiplier
+     */
+    public static double mobChance(double mobChance, double environmentMultiplier, int killCount, double pityMultiplier) {
+        double chance = mobChance * environmentMultiplier;
+
+        // Kill count bonus
+        if (killCount > 10) {
+            double bonus = Math.min(1.5, 1.0 + (killCount - 10) * 0.01);
+            chance *= bonus;
+        }
+
+        return Math.min(chance * pityMultiplier, MOB_CAP);
+    }
+
+    /**
+     * Gets the bad luck bonus for a player's pity counter
+     * @param pity fragment rolls since the player last got a fragment they did not own
+     * @param step bonus added per roll
+     * @param maxMultiplier the bonus never grows past this
+     */
+    public static double pityMultiplier(int pity, double step, double maxMultiplier) {
+        return Math.max(1.0, Math.min(1.0 + pity * step, maxMultiplier));
+    }
+
+    /**
+     * Compiles one fragment number sampler per set of owned fragments
+     * The sampler at index mask weighs fragment numbers whose bit is set in mask
+     * by duplicateWeight, so players mostly roll fragments they are missing.
+     * Masks where every weight would be 0 use the plain weights.
+     */
+    static AliasSampler[] fragmentNumberSamplers(double[] weights, double duplicateWeight) {
+        AliasSampler[] samplers = new AliasSampler[FRAGMENT_MASKS];
+        double[] masked = new double[weights.length];
+        for (int mask = 0; mask < FRAGMENT_MASKS; mask++) {
+            double total = 0;
+            for (int i = 0; i < weights.length; i++) {
+                masked[i] = (mask & (1 << i)) != 0 ? weights[i] * duplicateWeight : weights[i];
+                total += masked[i];
+            }
+            samplers[mask] = new AliasSampler(total > 0 ? masked : weights);
+        }
+        return samplers;
+    }
+
+    /**
+     * Picks the god of a chest fragment from where the chest is
+     * Draws from the generator only in the nether
+     */
+    public static String chestGod(int dimension, int y, RollRandom rolls) {
+        switch (dimension) {
+            case NETHER:
+                return rolls.nextBoolean() ? "banishment" : "fallen";
+            case THE_END:
+                return "veil";
+            default:
+                if (y < -20) return "abyssal";
+                if (y < 30) return "fallen";
+                if (y > 100) return "tempest";
+                return "sylvan";
+        }
+    }
+}
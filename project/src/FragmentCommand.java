@@ -1,7 +1,13 @@
 package com.fallengod.testament.commands;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -16,7 +22,10 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
 import com.fallengod.testament.FallenGodPlugin;
+import com.fallengod.testament.data.ProgressArchive;
 import com.fallengod.testament.services.FragmentSpawningService;
+import com.fallengod.testament.services.RollHistory;
+import com.fallengod.testament.services.RollReplay;
 
 /**
  * Command handler for fragment management and altar generation
@@ -46,7 +55,7 @@ public class FragmentCommand implements CommandExecutor, TabCompleter {
             case "veil":
                 return handleVeilCommand(sender);
             case "stats":
-                return handleStatsCommand(sender);
+                return handleStatsCommand(sender, args);
             case "clear":
                 return handleClearCommand(sender);
             case "generatealtars":
@@ -57,6 +66,12 @@ public class FragmentCommand implements CommandExecutor, TabCompleter {
                 return handleGiveAllFragmentsCommand(sender, args);
             case "progress":
                 return handleProgressCommand(sender, args);
+            case "export":
+                return handleExportCommand(sender, args);
+            case "import":
+                return handleImportCommand(sender, args);
+            case "reload":
+                return handleReloadCommand(sender);
             case "help":
             default:
                 sendHelp(sender);
@@ -89,8 +104,8 @@ public class FragmentCommand implements CommandExecutor, TabCompleter {
         
         sender.sendMessage("§6=== Testament Progress for " + target.getName() + " ===");
         
+        var data = plugin.getPlayerDataStore().get(target.getUniqueId());
         for (String godType : plugin.getFragmentManager().getValidGodTypes()) {
-            var data = plugin.getPlayerDataStore().get(target.getUniqueId());
             String progress = data.getProgressSummary(godType);
             sender.sendMessage("§e" + capitalizeFirst(godType) + " God: " + progress);
         }
@@ -98,6 +113,87 @@ public class FragmentCommand implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    /**
+     * Exports all player progress to a backup archive in the plugin's backups folder
+     */
+    private boolean handleExportCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("fallengod.admin.backup")) {
+            sender.sendMessage("§cYou don't have permission to use this command.");
+            return true;
+        }
+
+        String name = args.length > 1 ? args[1] : "progress-" + System.currentTimeMillis() + ".fga";
+        File archive = getBackupFile(name);
+        if (archive == null) {
+            sender.sendMessage("§cInvalid backup name: " + name);
+            return true;
+        }
+
+        // Queue unsaved progress now, the export waits for it off the main thread
+        plugin.getPlayerDataStore().save();
+        sender.sendMessage("§7Exporting player progress to §e" + archive.getName() + "§7...");
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            String message;
+            try {
+                ProgressArchive.Result result = plugin.getPlayerDataStore().exportTo(archive);
+                message = "§aExported " + result.getRecords() + " player(s)"
+                    + (result.getSkipped() > 0 ? " §c(" + result.getSkipped() + " unreadable, see console)" : "");
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to export player progress: " + e.getMessage());
+                message = "§cExport failed: " + e.getMessage();
+            }
+            String reply = message;
+            plugin.getServer().getScheduler().runTask(plugin, () -> sender.sendMessage(reply));
+        });
+        return true;
+    }
+
+    /**
+     * Imports player progress from a backup archive, replacing existing records
+     */
+    private boolean handleImportCommand(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("fallengod.admin.backup")) {
+            sender.sendMessage("§cYou don't have permission to use this command.");
+            return true;
+        }
+        if (args.length < 2) {
+            sender.sendMessage("§cUsage: /fragment import <file>");
+            return true;
+        }
+
+        File archive = getBackupFile(args[1]);
+        if (archive == null || !archive.isFile()) {
+            sender.sendMessage("§cBackup not found: " + args[1]);
+            return true;
+        }
+
+        sender.sendMessage("§7Importing player progress from §e" + archive.getName() + "§7...");
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            String message;
+            try {
+                ProgressArchive.Result result = plugin.getPlayerDataStore().importFrom(archive);
+                message = "§aImported " + result.getRecords() + " player(s)"
+                    + (result.getSkipped() > 0 ? " §c(" + result.getSkipped() + " corrupt record(s) skipped, see console)" : "");
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to import player progress: " + e.getMessage());
+                message = "§cImport failed: " + e.getMessage();
+            }
+            String reply = message;
+            plugin.getServer().getScheduler().runTask(plugin, () -> sender.sendMessage(reply));
+        });
+        return true;
+    }
+
+    /**
+     * Resolves a backup name inside the backups folder, or null if it tries to leave it
+     */
+    private File getBackupFile(String name) {
+        if (name.isEmpty() || !name.equals(new File(name).getName())) {
+            return null;
+        }
+        return new File(new File(plugin.getDataFolder(), "backups"), name);
+    }
+
     /**
      * Gives all 7 fragments for a god to the player
      */
@@ -293,6 +389,7 @@ public class FragmentCommand implements CommandExecutor, TabCompleter {
         
         try {
             player.getInventory().addItem(plugin.getHeartOfFallenGod().createHeartOfFallenGod());
+            plugin.getHeartEffectListener().requestPossessionCheck(player);
             player.sendMessage("§4§l❤ You have been given the Heart of the Fallen God! ❤");
             
         } catch (Exception e) {
@@ -318,6 +415,7 @@ public class FragmentCommand implements CommandExecutor, TabCompleter {
         
         try {
             player.getInventory().addItem(plugin.getHeartOfFallenGod().createVeilOfNullification());
+            plugin.getHeartEffectListener().requestPossessionCheck(player);
             player.sendMessage("§5§l◊ You have been given the Veil of Nullification! ◊");
             
         } catch (Exception e) {
@@ -328,12 +426,19 @@ public class FragmentCommand implements CommandExecutor, TabCompleter {
         return true;
     }
     
-    private boolean handleStatsCommand(CommandSender sender) {
+    private boolean handleStatsCommand(CommandSender sender, String[] args) {
         if (!sender.hasPermission("fallengod.admin.stats")) {
             sender.sendMessage("§cYou don't have permission to use this command.");
             return true;
         }
         
+        if (args.length > 1 && args[1].equalsIgnoreCase("rolls")) {
+            return handleRollsCommand(sender, args);
+        }
+        if (args.length > 1 && args[1].equalsIgnoreCase("dump")) {
+            return handleRollDumpCommand(sender);
+        }
+        
         try {
             Map<String, Object> stats = fragmentSpawningService.getSpawningStats();
             
@@ -345,6 +450,7 @@ public class FragmentCommand implements CommandExecutor, TabCompleter {
             sender.sendMessage("  §7Mob drop chance: " + String.format("%.3f%%", (Double) stats.get("mob_drop_chance") * 100));
             sender.sendMessage("  §7Total player opens: " + stats.get("total_player_opens"));
             sender.sendMessage("  §7Total mob kills: " + stats.get("total_mob_kills"));
+            sender.sendMessage("  §7Recorded rolls: " + stats.get("recorded_rolls"));
             
         } catch (Exception e) {
             sender.sendMessage("§cError retrieving stats: " + e.getMessage());
@@ -354,6 +460,63 @@ public class FragmentCommand implements CommandExecutor, TabCompleter {
         return true;
     }
     
+    /**
+     * Lists the latest fragment rolls with their seeds
+     */
+    private boolean handleRollsCommand(CommandSender sender, String[] args) {
+        int count = 10;
+        if (args.length > 2) {
+            try {
+                count = Math.max(1, Math.min(100, Integer.parseInt(args[2])));
+            } catch (NumberFormatException e) {
+                sender.sendMessage("§cInvalid roll count: " + args[2]);
+                return true;
+            }
+        }
+        
+        List<RollHistory.Entry> entries = fragmentSpawningService.getRollHistory().getRecent(count);
+        sender.sendMessage("§6=== Last " + entries.size() + " Fragment Rolls ===");
+        SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
+        for (RollHistory.Entry entry : entries) {
+            String name = plugin.getServer().getOfflinePlayer(entry.getPlayer()).getName();
+            sender.sendMessage("§7" + timeFormat.format(new Date(entry.getTime())) + " §e" + entry.getType()
+                + " §7" + (name != null ? name : entry.getPlayer())
+                + " §8seed " + Long.toHexString(entry.getSeed())
+                + " §7" + String.format("%.4f%%", entry.getChance() * 100)
+                + (entry.isPassed() ? " §apassed" : " §cmissed"));
+        }
+        return true;
+    }
+    
+    /**
+     * Writes every remembered roll to a CSV file for offline replay
+     */
+    private boolean handleRollDumpCommand(CommandSender sender) {
+        // Copy on the main thread, write off it
+        List<RollHistory.Entry> entries = fragmentSpawningService.getRollHistory().getRecent(Integer.MAX_VALUE);
+        File file = new File(new File(plugin.getDataFolder(), "rolls"), "rolls-" + System.currentTimeMillis() + ".csv");
+        
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            String message;
+            try {
+                file.getParentFile().mkdirs();
+                try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8)) {
+                    out.println(RollReplay.CSV_HEADER);
+                    for (RollHistory.Entry entry : entries) {
+                        out.println(RollReplay.toCsv(entry));
+                    }
+                }
+                message = "§aWrote " + entries.size() + " roll(s) to " + file.getName();
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to write roll history: " + e.getMessage());
+                message = "§cCould not write roll history: " + e.getMessage();
+            }
+            String reply = message;
+            plugin.getServer().getScheduler().runTask(plugin, () -> sender.sendMessage(reply));
+        });
+        return true;
+    }
+    
     private boolean handleClearCommand(CommandSender sender) {
         if (!sender.hasPermission("fallengod.admin.clear")) {
             sender.sendMessage("§cYou don't have permission to use this command.");
@@ -372,6 +535,24 @@ public class FragmentCommand implements CommandExecutor, TabCompleter {
         return true;
     }
     
+    /**
+     * Re-reads config.yml and swaps in the new fragment drop tables
+     */
+    private boolean handleReloadCommand(CommandSender sender) {
+        if (!sender.hasPermission("fallengod.admin.reload")) {
+            sender.sendMessage("§cYou don't have permission to use this command.");
+            return true;
+        }
+        
+        plugin.reloadConfig();
+        if (fragmentSpawningService.reloadDropTable()) {
+            sender.sendMessage("§aReloaded fragment drop tables from config.yml.");
+        } else {
+            sender.sendMessage("§cInvalid drop table config, the previous tables are still in use. See console for details.");
+        }
+        return true;
+    }
+    
     private boolean handleGenerateAltarsCommand(CommandSender sender) {
         if (!sender.hasPermission("fallengod.admin.generate")) {
             sender.sendMessage("§cYou don't have permission to use this command.");
@@ -404,12 +585,15 @@ public class FragmentCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage("§e/fragment spawn <god> <number> <chest|here> §7- Spawn fragment");
         sender.sendMessage("§e/fragment heart §7- Give Heart of Fallen God");
         sender.sendMessage("§e/fragment veil §7- Give Veil of Nullification");
-        sender.sendMessage("§e/fragment stats §7- View spawning statistics");
+        sender.sendMessage("§e/fragment stats [rolls [count]|dump] §7- View spawning statistics or recent rolls");
         sender.sendMessage("§e/fragment clear §7- Clear processed chest cache");
         sender.sendMessage("§e/fragment generatealtars §7- Generate altars in current world");
         sender.sendMessage("§e/fragment forcealtar <god> §7- Force altar at your location");
         sender.sendMessage("§e/fragment giveall <god> §7- Give all 7 fragments for a god");
         sender.sendMessage("§e/fragment progress [player] §7- Show detailed progress");
+        sender.sendMessage("§e/fragment export [file] §7- Back up all player progress");
+        sender.sendMessage("§e/fragment import <file> §7- Restore player progress from a backup");
+        sender.sendMessage("§e/fragment reload §7- Reload fragment drop tables from config");
         sender.sendMessage("§e/fragment help §7- Show this help");
         
         sender.sendMessage("§7Available gods: " + String.join(", ", plugin.getFragmentManager().getValidGodTypes()));
@@ -421,7 +605,7 @@ public class FragmentCommand implements CommandExecutor, TabCompleter {
         
         switch (args.length) {
             case 1:
-                completions.addAll(Arrays.asList("spawn", "heart", "veil", "stats", "clear", "generatealtars", "forcealtar", "giveall", "progress", "help"));
+                completions.addAll(Arrays.asList("spawn", "heart", "veil", "stats", "clear", "generatealtars", "forcealtar", "giveall", "progress", "export", "import", "reload", "help"));
                 break;
             case 2:
                 if (args[0].equalsIgnoreCase("spawn") || args[0].equalsIgnoreCase("forcealtar") || args[0].equalsIgnoreCase("giveall")) {
@@ -429,6 +613,13 @@ public class FragmentCommand implements CommandExecutor, TabCompleter {
                 } else if (args[0].equalsIgnoreCase("progress")) {
                     // Add online player names
                     plugin.getServer().getOnlinePlayers().forEach(p -> completions.add(p.getName()));
+                } else if (args[0].equalsIgnoreCase("stats")) {
+                    completions.addAll(Arrays.asList("rolls", "dump"));
+                } else if (args[0].equalsIgnoreCase("import")) {
+                    String[] backups = new File(plugin.getDataFolder(), "backups").list((dir, name) -> name.endsWith(".fga"));
+                    if (backups != null) {
+                        completions.addAll(Arrays.asList(backups));
+                    }
                 }
                 break;
             case 3:
@@ -0,0 +1,486 @@
+package com.fallengod.testament.services;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.yaml.snakeyaml.Yaml;
+
+import com.fallengod.testament.data.GodTypes;
+
+/**
+ * Headless Monte Carlo simulation of the fragment economy
+ *
+ *   java -cp FallenGodTestament.jar:snakeyaml.jar com.fallengod.testament.services.FragmentSimulator
+ *       <config.yml> [profile.properties]
+ *
+ * Drop rules come from the plugin's config.yml, player behaviour from a
+ * SimulationProfile. Each synthetic player opens chests and kills mobs as
+ * Poisson processes and rolls through the same FragmentChances formulas,
+ * rarity gates, cooldowns, fragment weights and bad luck protection as the
+ * server; players are
+ * simulated in parallel on a fork/join pool. Prints how many hours each
+ * testament took to complete. Processed chests and the min_distance rule are
+ * not modelled: every chest is assumed to be a fresh one far from the last
+ * fragment.
+ */
+public final class FragmentSimulator {
+
+    private static final int PLAYERS_PER_TASK = 64;
+    private static final int FULL_MASK = 0x7F;
+
+    private FragmentSimulator() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: FragmentSimulator <config.yml> [profile.properties]");
+            System.exit(2);
+            return;
+        }
+
+        try {
+            Rules rules;
+            try (Reader reader = new InputStreamReader(new FileInputStream(args[0]), StandardCharsets.UTF_8)) {
+                Object root = new Yaml().load(reader);
+                rules = Rules.fromConfig(root instanceof Map ? (Map<?, ?>) root : Collections.emptyMap());
+            }
+            Properties properties = new Properties();
+            if (args.length > 1) {
+                try (Reader reader = new InputStreamReader(new FileInputStream(args[1]), StandardCharsets.UTF_8)) {
+                    properties.load(reader);
+                }
+            }
+            SimulationProfile profile = SimulationProfile.load(properties);
+
+            long start = System.nanoTime();
+            Result result = run(rules, profile);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            print(result, profile, seconds);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Simulates every player of the profile, in parallel
+     */
+    public static Result run(Rules rules, SimulationProfile profile) {
+        Simulation simulation = new Simulation(rules, profile);
+        return ForkJoinPool.commonPool().invoke(new PlayerRange(simulation, 0, profile.getPlayers()));
+    }
+
+    private static void print(Result result, SimulationProfile profile, double seconds) {
+        System.out.printf("Simulated %d players x %.0f hours in %.1fs%n", profile.getPlayers(), profile.getHours(), seconds);
+        System.out.printf("%-12s %10s %8s %8s %8s %8s%n", "testament", "completed", "mean h", "p10 h", "p50 h", "p90 h");
+        for (int godIndex = 0; godIndex <= GodTypes.COUNT; godIndex++) {
+            String name = godIndex < GodTypes.COUNT ? GodTypes.nameOf(godIndex) : "all six";
+            System.out.printf("%-12s %9.1f%% %8.1f %8s %8s %8s%n", name,
+                100.0 * result.getCompleted(godIndex) / result.getPlayers(), result.getMeanHours(godIndex),
+                formatHours(result.getPercentileHours(godIndex, 0.1)),
+                formatHours(result.getPercentileHours(godIndex, 0.5)),
+                formatHours(result.getPercentileHours(godIndex, 0.9)));
+        }
+    }
+
+    private static String formatHours(double hours) {
+        return Double.isNaN(hours) ? "-" : String.format("%.1f", hours);
+    }
+
+    /**
+     * Drop rules read from a config.yml, in the form the simulation needs
+     */
+    public static final class Rules {
+        private final double chestChance;
+        private final double mobChance;
+        private final double[] environmentMultipliers;
+        private final Map<String, Double> containerMultipliers;
+        private final Map<String, Double> mobMultipliers;
+        private final Map<String, Integer> mobGods;
+        private final Map<String, Boolean> mobBosses;
+        private final double[] fragmentWeights;
+        private final double duplicateWeight;
+        private final double pityStep;
+        private final double pityMaxMultiplier;
+        private final int minChests;
+        private final double chestCooldownHours;
+        private final double mobCooldownHours;
+
+        private Rules(double chestChance, double mobChance, double[] environmentMultipliers,
+                      Map<String, Double> containerMultipliers, Map<String, Double> mobMultipliers,
+                      Map<String, Integer> mobGods, Map<String, Boolean> mobBosses, double[] fragmentWeights,
+                      double duplicateWeight, double pityStep, double pityMaxMultiplier, int minChests,
+                      double chestCooldownHours, double mobCooldownHours) {
+            this.chestChance = chestChance;
+            this.mobChance = mobChance;
+            this.environmentMultipliers = environmentMultipliers;
+            this.containerMultipliers = containerMultipliers;
+            this.mobMultipliers = mobMultipliers;
+            this.mobGods = mobGods;
+            this.mobBosses = mobBosses;
+            this.fragmentWeights = fragmentWeights;
+            this.duplicateWeight = duplicateWeight;
+            this.pityStep = pityStep;
+            this.pityMaxMultiplier = pityMaxMultiplier;
+            this.minChests = minChests;
+            this.chestCooldownHours = chestCooldownHours;
+            this.mobCooldownHours = mobCooldownHours;
+        }
+
+        /**
+         * Reads the testament.fragments section of a parsed config.yml
+         * Uses the same defaults as the plugin for anything not set
+         */
+        public static Rules fromConfig(Map<?, ?> config) {
+            Map<?, ?> fragments = section(section(config, "testament"), "fragments");
+            Map<?, ?> dropTable = section(fragments, "drop_table");
+
+            double[] environmentMultipliers = {1.0, 1.0, 1.0, 1.0};
+            for (Map.Entry<?, ?> entry : section(fragments, "environment_multipliers").entrySet()) {
+                int dimension = SimulationProfile.dimensionOf(entry.getKey().toString());
+                if (dimension >= 0) {
+                    environmentMultipliers[dimension] = number(entry.getValue(), 1.0);
+                }
+            }
+
+            Map<String, Double> containerMultipliers = new HashMap<>();
+            for (Map.Entry<?, ?> entry : section(dropTable, "chests").entrySet()) {
+                containerMultipliers.put(entry.getKey().toString().toUpperCase(), number(entry.getValue(), 1.0));
+            }
+
+            Map<String, Double> mobMultipliers = new HashMap<>();
+            Map<String, Integer> mobGods = new HashMap<>();
+            Map<String, Boolean> mobBosses = new HashMap<>();
+            for (Map.Entry<?, ?> entry : section(dropTable, "mobs").entrySet()) {
+                String mob = entry.getKey().toString().toUpperCase();
+                Map<?, ?> rule = entry.getValue() instanceof Map ? (Map<?, ?>) entry.getValue() : Collections.emptyMap();
+                mobMultipliers.put(mob, number(rule.get("multiplier"), 1.0));
+                mobGods.put(mob, rule.get("god") != null ? GodTypes.indexOf(rule.get("god").toString()) : -1);
+                mobBosses.put(mob, Boolean.TRUE.equals(rule.get("boss")));
+            }
+
+            double[] fragmentWeights = {30, 20, 15, 13, 10, 7, 5};
+            if (fragments.get("fragment_weights") instanceof List) {
+                List<?> weights = (List<?>) fragments.get("fragment_weights");
+                fragmentWeights = new double[weights.size()];
+                for (int i = 0; i < fragmentWeights.length; i++) {
+                    fragmentWeights[i] = number(weights.get(i), 0);
+                }
+            }
+            if (fragmentWeights.length != 7) {
+                throw new IllegalArgumentException("Expected 7 fragment weights, got " + fragmentWeights.length);
+            }
+
+            Map<?, ?> pity = section(fragments, "pity");
+            return new Rules(
+                number(fragments.get("chest_spawn_chance"), 0.02),
+                number(fragments.get("mob_drop_chance"), 0.001),
+                environmentMultipliers, containerMultipliers, mobMultipliers, mobGods, mobBosses, fragmentWeights,
+                number(fragments.get("duplicate_weight"), 0.2),
+                number(pity.get("step"), 0.002),
+                number(pity.get("max_multiplier"), 2.0),
+                (int) number(fragments.get("min_chests_for_fragments"), 50),
+                number(fragments.get("player_chest_cooldown"), 7200000) / 3_600_000.0,
+                number(fragments.get("player_cooldown"), 3600000) / 3_600_000.0);
+        }
+
+        /**
+         * Compiles the fragment number samplers the server builds from the same config
+         */
+        AliasSampler[] fragmentNumberSamplers() {
+            return FragmentChances.fragmentNumberSamplers(fragmentWeights, duplicateWeight);
+        }
+
+        private static Map<?, ?> section(Map<?, ?> parent, String key) {
+            Object value = parent.get(key);
+            return value instanceof Map ? (Map<?, ?>) value : Collections.emptyMap();
+        }
+
+        private static double number(Object value, double defaultValue) {
+            return value instanceof Number ? ((Number) value).doubleValue() : defaultValue;
+        }
+    }
+
+    /**
+     * Completion times per testament, as whole-hour histograms
+     * Index GodTypes.COUNT holds the time until all six were complete.
+     */
+    public static final class Result {
+        private final int players;
+        private final int[][] hourCounts;
+        private final double[] hourSums;
+
+        Result(int players, int buckets) {
+            this.players = players;
+            this.hourCounts = new int[GodTypes.COUNT + 1][buckets];
+            this.hourSums = new double[GodTypes.COUNT + 1];
+        }
+
+        void record(int godIndex, double hours) {
+            int bucket = Math.min((int) hours, hourCounts[godIndex].length - 1);
+            hourCounts[godIndex][bucket]++;
+            hourSums[godIndex] += hours;
+        }
+
+        Result merge(Result other) {
+            Result merged = new Result(players + other.players, hourCounts[0].length);
+            for (int godIndex = 0; godIndex <= GodTypes.COUNT; godIndex++) {
+                for (int bucket = 0; bucket < hourCounts[godIndex].length; bucket++) {
+                    merged.hourCounts[godIndex][bucket] = hourCounts[godIndex][bucket] + other.hourCounts[godIndex][bucket];
+                }
+                merged.hourSums[godIndex] = hourSums[godIndex] + other.hourSums[godIndex];
+            }
+            return merged;
+        }
+
+        public int getPlayers() {
+            return players;
+        }
+
+        /**
+         * Gets how many players completed a testament (GodTypes index, or COUNT for all six)
+         */
+        public int getCompleted(int godIndex) {
+            int completed = 0;
+            for (int count : hourCounts[godIndex]) {
+                completed += count;
+            }
+            return completed;
+        }
+
+        /**
+         * Gets the mean hours to complete, over the players who completed
+         */
+        public double getMeanHours(int godIndex) {
+            int completed = getCompleted(godIndex);
+            return completed == 0 ? Double.NaN : hourSums[godIndex] / completed;
+        }
+
+        /**
+         * Gets the hour by which the given fraction of all players had completed,
+         * NaN if fewer than that completed at all
+         */
+        public double getPercentileHours(int godIndex, double fraction) {
+            long needed = (long) Math.ceil(fraction * players);
+            long seen = 0;
+            for (int bucket = 0; bucket < hourCounts[godIndex].length; bucket++) {
+                seen += hourCounts[godIndex][bucket];
+                if (seen >= needed && needed > 0) {
+                    return bucket + 1;
+                }
+            }
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Rules and profile flattened into arrays for the per-event loop
+     */
+    private static final class Simulation {
+        final Rules rules;
+        final double hours;
+        final long seed;
+        final double containerMultiplier;
+        // Indexed by the player's fragment mask for the god
+        final AliasSampler[] fragmentNumbers;
+        final AliasSampler chestDimensions;
+        final AliasSampler chestHeights;
+        final int[] heights;
+        // Activity 0 is opening a chest, the rest are mob kills
+        final double[] cumulativeRates;
+        final double totalRate;
+        final int[] activityMob;
+        final int[] activityDimension;
+        final double[] mobChance;
+        final int[] mobGod;
+        final boolean[] mobBoss;
+        final int mobCount;
+
+        Simulation(Rules rules, SimulationProfile profile) {
+            this.rules = rules;
+            this.hours = profile.getHours();
+            this.seed = profile.getSeed();
+            this.containerMultiplier = rules.containerMultipliers.getOrDefault(profile.getChestContainer(), 0.0);
+            this.fragmentNumbers = rules.fragmentNumberSamplers();
+            this.chestDimensions = new AliasSampler(profile.getChestDimensionWeights());
+            this.chestHeights = new AliasSampler(profile.getChestHeightWeights());
+            this.heights = profile.getChestHeights();
+
+            List<String> mobs = new ArrayList<>();
+            List<SimulationProfile.MobActivity> activities = profile.getMobActivities();
+            cumulativeRates = new double[activities.size() + 1];
+            activityMob = new int[activities.size() + 1];
+            activityDimension = new int[activities.size() + 1];
+            double rate = profile.getChestOpensPerHour();
+            cumulativeRates[0] = rate;
+            for (int i = 0; i < activities.size(); i++) {
+                SimulationProfile.MobActivity activity = activities.get(i);
+                if (!mobs.contains(activity.getMob())) {
+                    mobs.add(activity.getMob());
+                }
+                activityMob[i + 1] = mobs.indexOf(activity.getMob());
+                activityDimension[i + 1] = activity.getDimension();
+                rate += activity.getKillsPerHour();
+                cumulativeRates[i + 1] = rate;
+            }
+            this.totalRate = rate;
+            if (!(totalRate > 0)) {
+                throw new IllegalArgumentException("The profile has no chest opens or mob kills");
+            }
+
+            mobCount = mobs.size();
+            mobChance = new double[mobCount];
+            mobGod = new int[mobCount];
+            mobBoss = new boolean[mobCount];
+            for (int mob = 0; mob < mobCount; mob++) {
+                String name = mobs.get(mob);
+                Double multiplier = rules.mobMultipliers.get(name);
+                // Mobs missing from the drop table never drop fragments
+                mobChance[mob] = multiplier != null ? rules.mobChance * multiplier : 0;
+                mobGod[mob] = rules.mobGods.getOrDefault(name, -1);
+                mobBoss[mob] = rules.mobBosses.getOrDefault(name, false);
+            }
+        }
+
+        /**
+         * Plays one synthetic player and records their completion times
+         */
+        void simulatePlayer(int playerIndex, RollRandom rolls, Result result, int[] kills, int[] masks) {
+            rolls.reset(RollRandom.mix(seed ^ (playerIndex + 1) * 0x9E3779B97F4A7C15L));
+            java.util.Arrays.fill(kills, 0);
+            java.util.Arrays.fill(masks, 0);
+            int completed = 0;
+            int chestsOpened = 0;
+            int pity = 0;
+            double chestCooldownUntil = 0;
+            double mobCooldownUntil = 0;
+            double time = 0;
+
+            while (completed < GodTypes.COUNT) {
+                time += -Math.log(1.0 - rolls.nextDouble()) / totalRate;
+                if (time >= hours) {
+                    break;
+                }
+
+                int activity = pickActivity(rolls.nextDouble() * totalRate);
+                int godIndex = -1;
+                if (activity == 0) {
+                    chestsOpened++;
+                    if (containerMultiplier <= 0 || time < chestCooldownUntil || chestsOpened < rules.minChests) {
+                        continue;
+                    }
+                    int dimension = chestDimensions.sample(rolls.nextDouble());
+                    int y = dimension == FragmentChances.OVERWORLD ? heights[chestHeights.sample(rolls.nextDouble())] : 64;
+                    double chance = FragmentChances.chestChance(rules.chestChance, rules.environmentMultipliers[dimension],
+                        containerMultiplier, dimension, y, chestsOpened, pityMultiplier(pity));
+                    if (rolls.nextDouble() > chance || rolls.nextDouble() > FragmentChances.CHEST_RARITY_GATE) {
+                        pity++;
+                        continue;
+                    }
+                    godIndex = GodTypes.indexOf(FragmentChances.chestGod(dimension, y, rolls));
+                    chestCooldownUntil = time + rules.chestCooldownHours;
+                } else {
+                    int mob = activityMob[activity];
+                    int killCount = ++kills[mob];
+                    if (mobChance[mob] <= 0) {
+                        continue;
+                    }
+                    double chance = FragmentChances.mobChance(mobChance[mob],
+                        rules.environmentMultipliers[activityDimension[activity]], killCount, pityMultiplier(pity));
+                    if (rolls.nextDouble() > chance || time < mobCooldownUntil
+                        || (!mobBoss[mob] && rolls.nextDouble() >= FragmentChances.MOB_RARITY_GATE)) {
+                        if (time >= mobCooldownUntil) {
+                            pity++;
+                        }
+                        continue;
+                    }
+                    godIndex = mobGod[mob];
+                    if (godIndex < 0) {
+                        if (rolls.nextDouble() > FragmentChances.RANDOM_GOD_GATE) {
+                            pity++;
+                            continue;
+                        }
+                        godIndex = rolls.nextInt(GodTypes.COUNT);
+                    }
+                    mobCooldownUntil = time + rules.mobCooldownHours;
+                }
+
+                if (godIndex < 0) {
+                    continue;
+                }
+                int bit = 1 << fragmentNumbers[masks[godIndex]].sample(rolls.nextDouble());
+                if ((masks[godIndex] & bit) != 0) {
+                    pity++;
+                    continue;
+                }
+                pity = 0;
+                masks[godIndex] |= bit;
+                if (masks[godIndex] == FULL_MASK) {
+                    result.record(godIndex, time);
+                    if (++completed == GodTypes.COUNT) {
+                        result.record(GodTypes.COUNT, time);
+                    }
+                }
+            }
+        }
+
+        private double pityMultiplier(int pity) {
+            return FragmentChances.pityMultiplier(pity, rules.pityStep, rules.pityMaxMultiplier);
+        }
+
+        private int pickActivity(double point) {
+            for (int activity = 0; activity < cumulativeRates.length - 1; activity++) {
+                if (point < cumulativeRates[activity]) {
+                    return activity;
+                }
+            }
+            return cumulativeRates.length - 1;
+        }
+    }
+
+    /**
+     * Simulates a range of players, splitting it across the pool
+     */
+    private static final class PlayerRange extends RecursiveTask<Result> {
+        private final Simulation simulation;
+        private final int from;
+        private final int to;
+
+        PlayerRange(Simulation simulation, int from, int to) {
+            this.simulation = simulation;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from <= PLAYERS_PER_TASK) {
+                Result result = new Result(to - from, (int) Math.ceil(simulation.hours) + 1);
+                RollRandom rolls = new RollRandom();
+                int[] kills = new int[simulation.mobCount];
+                int[] masks = new int[GodTypes.COUNT];
+                for (int player = from; player < to; player++) {
+                    simulation.simulatePlayer(player, rolls, result, kills, masks);
+                }
+                return result;
+            }
+
+            int middle = (from + to) >>> 1;
+            PlayerRange left = new PlayerRange(simulation, from, middle);
+            left.fork();
+            Result right = new PlayerRange(simulation, middle, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
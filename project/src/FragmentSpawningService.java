@@ -1,20 +1,20 @@
 package com.fallengod.testament.services;
 
+import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
-import org.bukkit.block.Chest;
+import org.bukkit.block.Container;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
@@ -25,6 +25,9 @@ import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 
 import com.fallengod.testament.FallenGodPlugin;
+import com.fallengod.testament.data.GodTypes;
+import com.fallengod.testament.data.PlayerTestamentData;
+import com.fallengod.testament.data.ProgressCounters;
 import com.fallengod.testament.items.FragmentManager;
 
 /**
@@ -33,58 +36,68 @@ import com.fallengod.testament.items.FragmentManager;
  */
 public class FragmentSpawningService {
     
+    // How long a spawn blocks its exact location, and how long it counts for min_distance
+    private static final long LOCATION_COOLDOWN_MILLIS = 4 * 60 * 60 * 1000L;
+    private static final long SPAWN_RETENTION_MILLIS = 48 * 60 * 60 * 1000L;
+    
     private final FallenGodPlugin plugin;
     private final FragmentManager fragmentManager;
     private final TestamentService testamentService;
+    private final CooldownStore cooldowns;
     private final Logger logger;
     private final FileConfiguration config;
     
     // Configuration
-    private final double chestSpawnChance;
-    private final double baseMobDropChance;
     private final int minDistanceBetweenFragments;
     private final long playerChestCooldown;
     private final long playerMobCooldown;
     private final int minChestsForFragments;
     
+    // Chests already rolled, kept in chunk data (main thread only)
+    private final ProcessedChestTracker processedChests;
     // Thread-safe tracking
-    private final Set<Location> processedChests = ConcurrentHashMap.newKeySet();
-    private final Map<String, AtomicLong> lastSpawnTimes = new ConcurrentHashMap<>();
-    private final Map<String, AtomicLong> playerChestOpens = new ConcurrentHashMap<>();
-    private final Map<EntityType, AtomicLong> mobKillCounts = new ConcurrentHashMap<>();
-    
-    // Mob configuration
-    private final Map<EntityType, Double> mobDropMultipliers;
-    private final Map<World.Environment, Double> environmentMultipliers;
-    private final Map<String, Set<EntityType>> godMobAssociations;
-    private final Set<EntityType> bossOnlyMobs;
-    private final Set<Material> validChestTypes;
-    private final Set<Material> rareChestTypes;
-    
-    public FragmentSpawningService(FallenGodPlugin plugin, FragmentManager fragmentManager, TestamentService testamentService) {
+    // Recent chest spawn points for the min_distance rule (guarded by itself)
+    private final SpawnPointIndex recentSpawns;
+    // Chest opens and kills counted this session, for stats (per-player counts live in progress data)
+    private final AtomicLong sessionChestOpens = new AtomicLong();
+    private final AtomicLong sessionMobKills = new AtomicLong();
+    
+    // Compiled chances, mob, environment and chest rules, swapped whole on reload
+    private volatile DropTable dropTable;
+    // Kill counter index per mob that can drop fragments, rebuilt with the drop table
+    private volatile Map<EntityType, Integer> killCounters;
+    
+    // One generator reseeded for every roll, and the seeds of recent rolls (main thread only)
+    private final RollRandom rolls = new RollRandom();
+    private final RollHistory rollHistory;
+    private final boolean seededChestRolls;
+    private final boolean seededMobRolls;
+    
+    public FragmentSpawningService(FallenGodPlugin plugin, FragmentManager fragmentManager, TestamentService testamentService,
+                                   CooldownStore cooldowns) {
         this.plugin = plugin;
         this.fragmentManager = fragmentManager;
         this.testamentService = testamentService;
+        this.cooldowns = cooldowns;
         this.logger = plugin.getLogger();
         this.config = plugin.getConfig();
         
         // Load configuration
-        this.chestSpawnChance = config.getDouble("testament.fragments.chest_spawn_chance", 0.02);
-        this.baseMobDropChance = config.getDouble("testament.fragments.mob_drop_chance", 0.001);
         this.minDistanceBetweenFragments = config.getInt("testament.fragments.min_distance", 2000);
         this.playerChestCooldown = config.getLong("testament.fragments.player_chest_cooldown", 7200000); // 2 hours
         this.playerMobCooldown = config.getLong("testament.fragments.player_cooldown", 3600000); // 1 hour
         this.minChestsForFragments = config.getInt("testament.fragments.min_chests_for_fragments", 50);
+        this.processedChests = new ProcessedChestTracker(plugin);
+        this.recentSpawns = new SpawnPointIndex(minDistanceBetweenFragments, SPAWN_RETENTION_MILLIS);
+        this.seededChestRolls = "seeded".equalsIgnoreCase(config.getString("testament.fragments.rng.chest", "random"));
+        this.seededMobRolls = "seeded".equalsIgnoreCase(config.getString("testament.fragments.rng.mob", "random"));
+        this.rollHistory = new RollHistory(config.getInt("testament.fragments.rng.history_size", 1024));
         
         // Initialize collections
-        this.mobDropMultipliers = initializeMobMultipliers();
-        this.environmentMultipliers = initializeEnvironmentMultipliers();
-        this.godMobAssociations = initializeGodMobAssociations();
-        this.bossOnlyMobs = initializeBossOnlyMobs();
-        this.validChestTypes = initializeValidChestTypes();
-        this.rareChestTypes = initializeRareChestTypes();
+        this.dropTable = loadInitialDropTable();
+        this.killCounters = buildKillCounters(dropTable);
         
-        logger.info("Fragment spawning service initialized - Chest: " + (chestSpawnChance * 100) + "%, Mob: " + (baseMobDropChance * 100) + "%");
+        logger.info("Fragment spawning service initialized - Chest: " + (dropTable.getChestChance() * 100) + "%, Mob: " + (dropTable.getBaseMobChance() * 100) + "%");
     }
     
     /**
@@ -94,51 +107,107 @@ public class FragmentSpawningService {
         if (chestLocation == null || player == null) return;
         
         // Check if already processed
-        if (processedChests.contains(chestLocation)) {
+        if (processedChests.isProcessed(chestLocation)) {
+            return;
+        }
+        
+        // Only containers listed in the drop table hold fragments
+        DropTable table = dropTable;
+        double containerMultiplier = table.getChestMultiplier(chestLocation.getBlock().getType());
+        if (containerMultiplier <= 0) {
             return;
         }
         
         try {
-            // Track player chest opens
-            String playerKey = player.getUniqueId().toString();
-            playerChestOpens.computeIfAbsent(playerKey, k -> new AtomicLong(0)).incrementAndGet();
-            
-            // Check rarity requirements
-            if (!passesChestRarityCheck(player, chestLocation)) {
-                processedChests.add(chestLocation);
-                return;
-            }
-            
-            // Calculate spawn chance
-            double effectiveChance = calculateChestSpawnChance(chestLocation, player);
-            
-            if (ThreadLocalRandom.current().nextDouble() > effectiveChance) {
-                processedChests.add(chestLocation);
-                return;
+            if (rollsChestFragment(table, containerMultiplier, chestLocation, player)) {
+                spawnFragmentInChest(table, chestLocation, player);
             }
-            
-            // Check location validity
-            if (!isValidSpawnLocation(chestLocation)) {
-                processedChests.add(chestLocation);
+        } catch (Exception e) {
+            logger.warning("Error handling chest open: " + e.getMessage());
+        } finally {
+            processedChests.markProcessed(chestLocation);
+        }
+    }
+    
+    /**
+     * Handles structure loot being generated into a container (loot chest mode)
+     * Loot is generated once per container, so no processed-chest marks are kept;
+     * a fragment that passes the roll is added to the generated loot
+     */
+    public void handleLootGenerate(Location containerLocation, Material containerType, Player player, List<ItemStack> loot) {
+        if (containerLocation == null || player == null) return;
+        
+        DropTable table = dropTable;
+        double containerMultiplier = table.getChestMultiplier(containerType);
+        if (containerMultiplier <= 0) {
+            return;
+        }
+        
+        try {
+            if (!rollsChestFragment(table, containerMultiplier, containerLocation, player)) {
                 return;
             }
             
-            // Additional rarity gate
-            if (ThreadLocalRandom.current().nextDouble() > 0.33) {
-                processedChests.add(chestLocation);
-                return;
+            String godType = determineGodTypeByLocation(containerLocation);
+            int fragmentNumber = rollFragmentNumber(table, player, godType);
+            ItemStack fragment = fragmentManager.createFragment(godType, fragmentNumber);
+            if (fragment != null) {
+                loot.add(fragment);
+                onChestFragmentSpawned(containerLocation, player, godType, fragmentNumber);
             }
-            
-            // Spawn fragment
-            spawnFragmentInChest(chestLocation, player);
-            processedChests.add(chestLocation);
-            
         } catch (Exception e) {
-            logger.warning("Error handling chest open: " + e.getMessage());
-            processedChests.add(chestLocation);
+            logger.warning("Error handling loot generation: " + e.getMessage());
         }
     }
     
+    /**
+     * Counts the opened container and runs every chest roll and rarity gate
+     * @return true if a fragment should spawn
+     */
+    private boolean rollsChestFragment(DropTable table, double containerMultiplier, Location chestLocation, Player player) {
+        // Track player chest opens
+        PlayerTestamentData data = plugin.getPlayerDataStore().get(player.getUniqueId());
+        int chestsOpened = data.incrementCounter(ProgressCounters.CHESTS_OPENED_INDEX);
+        sessionChestOpens.incrementAndGet();
+        
+        // Check rarity requirements
+        if (!passesChestRarityCheck(player, chestsOpened)) {
+            return false;
+        }
+        
+        // Calculate spawn chance
+        double effectiveChance = calculateChestSpawnChance(table, containerMultiplier, chestLocation, chestsOpened,
+            data.getCounter(ProgressCounters.FRAGMENT_PITY_INDEX));
+        long seed = beginRoll(seededChestRolls, RollHistory.Type.CHEST, chestLocation, player.getUniqueId(), chestsOpened);
+        
+        // Chance roll, location validity, then an additional rarity gate
+        boolean chancePassed = rolls.nextDouble() <= effectiveChance;
+        boolean blocked = chancePassed && !isValidSpawnLocation(chestLocation);
+        boolean passed = chancePassed && !blocked && rolls.nextDouble() <= FragmentChances.CHEST_RARITY_GATE;
+        rollHistory.record(RollHistory.Type.CHEST, seed, player.getUniqueId(), effectiveChance,
+            dimensionOf(chestLocation.getWorld().getEnvironment()), chestLocation.getBlockY(),
+            blocked ? RollHistory.LOCATION_BLOCKED : 0, passed);
+        if (!passed) {
+            data.incrementCounter(ProgressCounters.FRAGMENT_PITY_INDEX);
+        }
+        return passed;
+    }
+    
+    /**
+     * Seeds the roll generator for one chest or mob roll
+     * Seeded rolls derive the seed from the world seed, chunk, player and the
+     * player's open or kill count; otherwise it is random
+     * @return the seed, which replays the roll's draws through RollRandom
+     */
+    private long beginRoll(boolean seeded, RollHistory.Type type, Location location, UUID player, long sequence) {
+        long seed = seeded
+            ? RollRandom.seedFor(location.getWorld().getSeed(), location.getBlockX() >> 4, location.getBlockZ() >> 4,
+                player, type.ordinal(), sequence)
+            : ThreadLocalRandom.current().nextLong();
+        rolls.reset(seed);
+        return seed;
+    }
+    
     /**
      * Handles mob death for fragment drops
      */
@@ -152,39 +221,59 @@ public class FragmentSpawningService {
         Player killer = event.getEntity().getKiller();
         EntityType entityType = entity.getType();
         
+        DropTable table = dropTable;
         try {
-            // Track mob kills
-            mobKillCounts.computeIfAbsent(entityType, k -> new AtomicLong(0)).incrementAndGet();
-            
             // Check if mob can drop fragments
-            if (!canMobDropFragment(entityType)) {
+            if (!table.canMobDrop(entityType)) {
                 return;
             }
             
-            // Calculate drop chance
-            double dropChance = calculateMobDropChance(entityType, entity.getWorld().getEnvironment(), killer);
-            
-            if (ThreadLocalRandom.current().nextDouble() > dropChance) {
-                return;
+            // Track the killer's kills of this mob
+            PlayerTestamentData data = plugin.getPlayerDataStore().get(killer.getUniqueId());
+            int killCount = 0;
+            Integer counterIndex = killCounters.get(entityType);
+            if (counterIndex != null) {
+                killCount = data.incrementCounter(counterIndex);
             }
+            long sessionKills = sessionMobKills.incrementAndGet();
             
-            // Check rarity requirements
-            if (!passesMobRarityCheck(entityType, killer)) {
-                return;
-            }
+            // Calculate drop chance
+            double dropChance = calculateMobDropChance(table, entityType, entity.getWorld().getEnvironment(), killCount,
+                data.getCounter(ProgressCounters.FRAGMENT_PITY_INDEX));
+            long seed = beginRoll(seededMobRolls, RollHistory.Type.MOB, entity.getLocation(), killer.getUniqueId(),
+                counterIndex != null ? killCount : sessionKills);
+            
+            // Chance roll, then rarity requirements: nothing during the player's cooldown,
+            // and regular mobs pass an additional random check while bosses always pass
+            boolean onCooldown = cooldowns.isActive(CooldownStore.Type.MOB, killer.getUniqueId());
+            boolean boss = table.isBoss(entityType);
+            boolean passed = rolls.nextDouble() <= dropChance && !onCooldown
+                && (boss || rolls.nextDouble() < FragmentChances.MOB_RARITY_GATE);
             
-            // Determine god type and fragment
-            String godType = determineGodTypeForMob(entityType);
-            if (godType == null) {
+            // Determine god type
+            String godType = table.getMobGod(entityType);
+            int rollFlags = (onCooldown ? RollHistory.ON_COOLDOWN : 0) | (boss ? RollHistory.BOSS : 0)
+                | (godType == null ? RollHistory.RANDOM_GOD : 0);
+            if (passed && godType == null) {
                 // Random god for non-associated mobs (very rare)
-                if (ThreadLocalRandom.current().nextDouble() > 0.1) {
-                    return;
+                passed = rolls.nextDouble() <= FragmentChances.RANDOM_GOD_GATE;
+                if (passed) {
+                    List<String> gods = fragmentManager.getValidGodTypes();
+                    godType = gods.get(rolls.nextInt(gods.size()));
                 }
-                List<String> gods = fragmentManager.getValidGodTypes();
-                godType = gods.get(ThreadLocalRandom.current().nextInt(gods.size()));
+            }
+            Location deathLocation = entity.getLocation();
+            rollHistory.record(RollHistory.Type.MOB, seed, killer.getUniqueId(), dropChance,
+                dimensionOf(deathLocation.getWorld().getEnvironment()), deathLocation.getBlockY(), rollFlags, passed);
+            if (!passed) {
+                // Kills during the drop cooldown never had a chance, so they are not bad luck
+                if (!onCooldown) {
+                    data.incrementCounter(ProgressCounters.FRAGMENT_PITY_INDEX);
+                }
+                return;
             }
             
-            int fragmentNumber = getWeightedFragmentNumber();
+            int fragmentNumber = rollFragmentNumber(table, killer, godType);
             
             // Create and drop fragment
             ItemStack fragment = fragmentManager.createFragment(godType, fragmentNumber);
@@ -192,12 +281,13 @@ public class FragmentSpawningService {
                 event.getDrops().add(fragment);
                 
                 // Record drop
-                recordFragmentDrop(killer, "mob");
+                cooldowns.start(CooldownStore.Type.MOB, killer.getUniqueId(), playerMobCooldown);
                 
                 // Notify player
-                notifyFragmentDrop(killer, godType, fragmentNumber, entityType);
+                notifyFragmentDrop(killer, godType, fragmentNumber, entityType, boss);
                 
                 // Update player progress
+                updatePity(killer, godType, fragmentNumber);
                 testamentService.onFragmentObtained(killer, godType, fragmentNumber);
                 
                 logger.info(String.format("Fragment drop: %s fragment %d from %s killed by %s", 
@@ -209,128 +299,92 @@ public class FragmentSpawningService {
         }
     }
     
-    private boolean passesChestRarityCheck(Player player, Location chestLocation) {
-        String playerKey = player.getUniqueId().toString();
-        
+    private boolean passesChestRarityCheck(Player player, int chestsOpened) {
         // Check player cooldown
-        AtomicLong lastSpawn = lastSpawnTimes.get(playerKey + "_chest");
-        if (lastSpawn != null) {
-            long timeSince = System.currentTimeMillis() - lastSpawn.get();
-            if (timeSince < playerChestCooldown) {
-                return false;
-            }
+        if (cooldowns.isActive(CooldownStore.Type.CHEST, player.getUniqueId())) {
+            return false;
         }
         
         // Check minimum exploration requirement
-        AtomicLong chestsOpened = playerChestOpens.get(playerKey);
-        return chestsOpened != null && chestsOpened.get() >= minChestsForFragments;
+        return chestsOpened >= minChestsForFragments;
     }
     
-    private boolean passesMobRarityCheck(EntityType entityType, Player killer) {
-        String playerKey = killer.getUniqueId().toString();
-        
-        // Check player cooldown
-        AtomicLong lastDrop = lastSpawnTimes.get(playerKey + "_mob");
-        if (lastDrop != null) {
-            long timeSince = System.currentTimeMillis() - lastDrop.get();
-            if (timeSince < playerMobCooldown) {
-                return false;
-            }
-        }
-        
-        // Boss mobs always pass
-        if (bossOnlyMobs.contains(entityType)) {
-            return true;
-        }
-        
-        // Additional random check for regular mobs
-        return ThreadLocalRandom.current().nextDouble() < 0.3;
+    private double calculateChestSpawnChance(DropTable table, double containerMultiplier, Location chestLocation,
+                                             int chestsOpened, int pity) {
+        World.Environment environment = chestLocation.getWorld().getEnvironment();
+        return FragmentChances.chestChance(table.getChestChance(), table.getEnvironmentMultiplier(environment),
+            containerMultiplier, dimensionOf(environment), chestLocation.getBlockY(), chestsOpened,
+            table.getPityMultiplier(pity));
     }
     
-    private double calculateChestSpawnChance(Location chestLocation, Player player) {
-        double chance = chestSpawnChance;
-        World world = chestLocation.getWorld();
-        
-        // Environment multiplier
-        chance *= environmentMultipliers.getOrDefault(world.getEnvironment(), 1.0);
-        
-        // Rare chest bonus
-        Block block = chestLocation.getBlock();
-        if (rareChestTypes.contains(block.getType())) {
-            chance *= 2.0;
-        }
-        
-        // Depth bonus
-        if (world.getEnvironment() == World.Environment.NORMAL) {
-            int y = chestLocation.getBlockY();
-            if (y < 0) {
-                double depthMultiplier = 1.0 + Math.abs(y) * 0.01;
-                chance *= Math.min(depthMultiplier, 2.0);
-            }
-        }
-        
-        // Exploration bonus
-        String playerKey = player.getUniqueId().toString();
-        AtomicLong chestsOpened = playerChestOpens.get(playerKey);
-        if (chestsOpened != null && chestsOpened.get() > 100) {
-            double explorationBonus = 1.0 + Math.min((chestsOpened.get() - 100) * 0.001, 0.5);
-            chance *= explorationBonus;
-        }
-        
-        return Math.min(chance, 0.25); // Cap at 25%
+    private double calculateMobDropChance(DropTable table, EntityType entityType, World.Environment environment,
+                                          int killCount, int pity) {
+        return FragmentChances.mobChance(table.getMobChance(entityType), table.getEnvironmentMultiplier(environment),
+            killCount, table.getPityMultiplier(pity));
     }
     
-    private double calculateMobDropChance(EntityType entityType, World.Environment environment, Player killer) {
-        double chance = baseMobDropChance;
-        
-        // Mob multiplier
-        chance *= mobDropMultipliers.getOrDefault(entityType, 1.0);
-        
-        // Environment multiplier
-        chance *= environmentMultipliers.getOrDefault(environment, 1.0);
-        
-        // Kill count bonus
-        AtomicLong killCount = mobKillCounts.get(entityType);
-        if (killCount != null && killCount.get() > 10) {
-            double bonus = Math.min(1.5, 1.0 + (killCount.get() - 10) * 0.01);
-            chance *= bonus;
+    /**
+     * Rolls a fragment number, weighing down the numbers the player already owns for the god
+     * Continues the current roll's draws and adds the result to its record
+     */
+    private int rollFragmentNumber(DropTable table, Player player, String godType) {
+        PlayerTestamentData data = plugin.getPlayerDataStore().get(player.getUniqueId());
+        int godIndex = GodTypes.indexOf(godType);
+        int ownedMask = data.getFragmentMask(godIndex);
+        int fragmentNumber = table.rollFragmentNumber(rolls.nextDouble(), ownedMask);
+        rollHistory.recordFragment(godIndex, ownedMask, fragmentNumber);
+        return fragmentNumber;
+    }
+    
+    /**
+     * Resets the player's pity counter for a new fragment; a duplicate counts as another dry roll
+     * Must run before the fragment is added to the player's progress
+     */
+    private void updatePity(Player player, String godType, int fragmentNumber) {
+        PlayerTestamentData data = plugin.getPlayerDataStore().get(player.getUniqueId());
+        if (data.hasFragment(godType, fragmentNumber)) {
+            data.incrementCounter(ProgressCounters.FRAGMENT_PITY_INDEX);
+        } else {
+            data.resetCounter(ProgressCounters.FRAGMENT_PITY_INDEX);
         }
-        
-        return Math.min(chance, 0.1); // Cap at 10%
     }
     
-    private void spawnFragmentInChest(Location chestLocation, Player player) {
+    private void spawnFragmentInChest(DropTable table, Location chestLocation, Player player) {
         Block block = chestLocation.getBlock();
-        if (!(block.getState() instanceof Chest)) {
+        if (!(block.getState() instanceof Container)) {
             return;
         }
         
-        Chest chest = (Chest) block.getState();
-        Inventory inventory = chest.getInventory();
+        Container container = (Container) block.getState();
+        Inventory inventory = container.getInventory();
         
         // Determine god type and fragment
         String godType = determineGodTypeByLocation(chestLocation);
-        int fragmentNumber = getWeightedFragmentNumber();
+        int fragmentNumber = rollFragmentNumber(table, player, godType);
         
         // Create fragment
         ItemStack fragment = fragmentManager.createFragment(godType, fragmentNumber);
         if (fragment != null && addItemToChest(inventory, fragment)) {
-            chest.update();
-            
-            // Record spawn
-            recordFragmentSpawn(chestLocation, player);
-            
-            // Notify player
-            notifyChestFragmentSpawn(player, godType, fragmentNumber, chestLocation);
-            
-            // Update player progress
-            testamentService.onFragmentObtained(player, godType, fragmentNumber);
-            
-            logger.info(String.format("Chest fragment: %s fragment %d spawned at %s for %s", 
-                godType, fragmentNumber, formatLocation(chestLocation), player.getName()));
+            container.update();
+            onChestFragmentSpawned(chestLocation, player, godType, fragmentNumber);
         }
     }
     
+    private void onChestFragmentSpawned(Location chestLocation, Player player, String godType, int fragmentNumber) {
+        // Record spawn
+        recordFragmentSpawn(chestLocation, player);
+        
+        // Notify player
+        notifyChestFragmentSpawn(player, godType, fragmentNumber, chestLocation);
+        
+        // Update player progress
+        updatePity(player, godType, fragmentNumber);
+        testamentService.onFragmentObtained(player, godType, fragmentNumber);
+        
+        logger.info(String.format("Chest fragment: %s fragment %d spawned at %s for %s", 
+            godType, fragmentNumber, formatLocation(chestLocation), player.getName()));
+    }
+    
     private void notifyChestFragmentSpawn(Player player, String godType, int fragmentNumber, Location location) {
         player.sendMessage("§6§l✦ DIVINE DISCOVERY ✦");
         player.sendMessage("§e§lAncient power resonates from within this chest!");
@@ -342,14 +396,14 @@ public class FragmentSpawningService {
             location.clone().add(0.5, 1, 0.5), 20, 0.5, 0.5, 0.5, 0.1);
     }
     
-    private void notifyFragmentDrop(Player player, String godType, int fragmentNumber, EntityType mobType) {
+    private void notifyFragmentDrop(Player player, String godType, int fragmentNumber, EntityType mobType, boolean boss) {
         player.sendMessage("§6§l✦ DIVINE FRAGMENT DISCOVERED ✦");
         player.sendMessage("§e§lThe " + mobType.name().toLowerCase().replace("_", " ") + 
                          " releases a fragment of " + godType.toUpperCase() + " power!");
         player.sendMessage("§7Fragment " + fragmentNumber + " of 7 - A piece of divine testament!");
         
         // Server announcement for boss drops
-        if (bossOnlyMobs.contains(mobType)) {
+        if (boss) {
             org.bukkit.Bukkit.broadcastMessage("§6§l⚡ " + player.getName() + " has obtained a divine fragment from the " + 
                 mobType.name().toLowerCase().replace("_", " ") + "! ⚡");
         }
@@ -357,193 +411,118 @@ public class FragmentSpawningService {
     
     // Cleanup and utility methods
     public void shutdown() {
-        // Clear tracking data
-        processedChests.clear();
-        lastSpawnTimes.clear();
-        playerChestOpens.clear();
-        mobKillCounts.clear();
+        // Clear tracking data (processed chests are kept in chunk data)
+        synchronized (recentSpawns) {
+            recentSpawns.clear();
+        }
         
         logger.info("Fragment spawning service shut down");
     }
     
+    /**
+     * Releases cached processed-chest marks for a chunk being unloaded
+     */
+    public void onChunkUnload(Chunk chunk) {
+        processedChests.unloadChunk(chunk);
+    }
+    
     public void clearProcessedChests() {
-        processedChests.clear();
-        lastSpawnTimes.clear();
-        playerChestOpens.clear();
+        processedChests.clear(plugin.getServer().getWorlds());
+        cooldowns.clear();
+        synchronized (recentSpawns) {
+            recentSpawns.clear();
+        }
         logger.info("Cleared processed chest cache");
     }
     
+    /**
+     * Gets the seeds and outcomes of recent rolls (main thread only)
+     */
+    public RollHistory getRollHistory() {
+        return rollHistory;
+    }
+    
     public Map<String, Object> getSpawningStats() {
         Map<String, Object> stats = new HashMap<>();
-        stats.put("processed_chests", processedChests.size());
-        stats.put("recent_spawns", lastSpawnTimes.size());
-        stats.put("chest_spawn_chance", chestSpawnChance);
-        stats.put("mob_drop_chance", baseMobDropChance);
-        stats.put("total_player_opens", playerChestOpens.values().stream().mapToLong(AtomicLong::get).sum());
-        stats.put("total_mob_kills", mobKillCounts.values().stream().mapToLong(AtomicLong::get).sum());
+        stats.put("processed_chests", processedChests.getLoadedCount());
+        synchronized (recentSpawns) {
+            stats.put("recent_spawns", recentSpawns.size());
+        }
+        stats.put("active_cooldowns", cooldowns.size());
+        DropTable table = dropTable;
+        stats.put("chest_spawn_chance", table.getChestChance());
+        stats.put("mob_drop_chance", table.getBaseMobChance());
+        stats.put("total_player_opens", sessionChestOpens.get());
+        stats.put("total_mob_kills", sessionMobKills.get());
+        stats.put("recorded_rolls", rollHistory.getRecordedCount());
         return stats;
     }
     
-    // Helper methods for initialization
-    private Map<EntityType, Double> initializeMobMultipliers() {
-        Map<EntityType, Double> multipliers = new HashMap<>();
-        multipliers.put(EntityType.ENDER_DRAGON, 25.0);
-        multipliers.put(EntityType.WITHER, 20.0);
-        multipliers.put(EntityType.ELDER_GUARDIAN, 15.0);
-        multipliers.put(EntityType.WARDEN, 12.0);
-        multipliers.put(EntityType.EVOKER, 10.0);
-        multipliers.put(EntityType.WITHER_SKELETON, 8.0);
-        multipliers.put(EntityType.SHULKER, 6.0);
-        multipliers.put(EntityType.BLAZE, 4.0);
-        multipliers.put(EntityType.GHAST, 3.0);
-        multipliers.put(EntityType.ENDERMAN, 2.0);
-        multipliers.put(EntityType.GUARDIAN, 2.0);
-        multipliers.put(EntityType.PIGLIN_BRUTE, 2.0);
-        return multipliers;
-    }
-    
-    private Map<World.Environment, Double> initializeEnvironmentMultipliers() {
-        Map<World.Environment, Double> multipliers = new HashMap<>();
-        multipliers.put(World.Environment.NORMAL, 1.0);
-        multipliers.put(World.Environment.NETHER, 2.0);
-        multipliers.put(World.Environment.THE_END, 3.0);
-        return multipliers;
-    }
-    
-    private Set<EntityType> initializeBossOnlyMobs() {
-        Set<EntityType> bosses = new HashSet<>();
-        bosses.add(EntityType.ENDER_DRAGON);
-        bosses.add(EntityType.WITHER);
-        bosses.add(EntityType.ELDER_GUARDIAN);
-        bosses.add(EntityType.WARDEN);
-        return bosses;
-    }
-    
-    private Set<Material> initializeValidChestTypes() {
-        Set<Material> types = new HashSet<>();
-        types.add(Material.CHEST);
-        types.add(Material.TRAPPED_CHEST);
-        types.add(Material.BARREL);
-        types.add(Material.SHULKER_BOX);
-        return types;
-    }
-    
-    private Set<Material> initializeRareChestTypes() {
-        Set<Material> types = new HashSet<>();
-        types.add(Material.ENDER_CHEST);
-        types.add(Material.SHULKER_BOX);
-        return types;
-    }
-    
-    private Map<String, Set<EntityType>> initializeGodMobAssociations() {
-        Map<String, Set<EntityType>> associations = new HashMap<>();
-        
-        // Fallen God - Death and undead
-        Set<EntityType> fallenMobs = new HashSet<>();
-        fallenMobs.add(EntityType.WITHER);
-        fallenMobs.add(EntityType.WITHER_SKELETON);
-        fallenMobs.add(EntityType.SKELETON);
-        fallenMobs.add(EntityType.ZOMBIE);
-        fallenMobs.add(EntityType.PHANTOM);
-        fallenMobs.add(EntityType.ZOMBIFIED_PIGLIN);
-        associations.put("fallen", fallenMobs);
-        
-        // Banishment God - Nether entities
-        Set<EntityType> banishmentMobs = new HashSet<>();
-        banishmentMobs.add(EntityType.BLAZE);
-        banishmentMobs.add(EntityType.GHAST);
-        banishmentMobs.add(EntityType.MAGMA_CUBE);
-        banishmentMobs.add(EntityType.HOGLIN);
-        banishmentMobs.add(EntityType.PIGLIN_BRUTE);
-        banishmentMobs.add(EntityType.WITHER);
-        associations.put("banishment", banishmentMobs);
-        
-        // Abyssal God - Ocean depths
-        Set<EntityType> abyssalMobs = new HashSet<>();
-        abyssalMobs.add(EntityType.ELDER_GUARDIAN);
-        abyssalMobs.add(EntityType.GUARDIAN);
-        abyssalMobs.add(EntityType.DROWNED);
-        abyssalMobs.add(EntityType.SQUID);
-        abyssalMobs.add(EntityType.GLOW_SQUID);
-        abyssalMobs.add(EntityType.WARDEN);
-        associations.put("abyssal", abyssalMobs);
-        
-        // Sylvan God - Nature creatures
-        Set<EntityType> sylvanMobs = new HashSet<>();
-        sylvanMobs.add(EntityType.EVOKER);
-        sylvanMobs.add(EntityType.VINDICATOR);
-        sylvanMobs.add(EntityType.WITCH);
-        sylvanMobs.add(EntityType.CREEPER);
-        sylvanMobs.add(EntityType.SPIDER);
-        sylvanMobs.add(EntityType.CAVE_SPIDER);
-        associations.put("sylvan", sylvanMobs);
-        
-        // Tempest God - Sky creatures
-        Set<EntityType> tempestMobs = new HashSet<>();
-        tempestMobs.add(EntityType.PHANTOM);
-        tempestMobs.add(EntityType.VEX);
-        tempestMobs.add(EntityType.GHAST);
-        tempestMobs.add(EntityType.BLAZE);
-        tempestMobs.add(EntityType.EVOKER);
-        associations.put("tempest", tempestMobs);
-        
-        // Veil God - End dimension
-        Set<EntityType> veilMobs = new HashSet<>();
-        veilMobs.add(EntityType.ENDER_DRAGON);
-        veilMobs.add(EntityType.ENDERMAN);
-        veilMobs.add(EntityType.ENDERMITE);
-        veilMobs.add(EntityType.SHULKER);
-        veilMobs.add(EntityType.SILVERFISH);
-        associations.put("veil", veilMobs);
-        
-        return associations;
+    /**
+     * Reloads the drop table from the current config and swaps it in
+     * Rolls in progress finish on the old table; nothing on the event path locks.
+     * The old table stays in use if the new config is invalid
+     * @return true if the new table was installed
+     */
+    public boolean reloadDropTable() {
+        try {
+            DropTable table = DropTable.load(plugin.getConfig(), logger);
+            killCounters = buildKillCounters(table);
+            dropTable = table;
+            return true;
+        } catch (IllegalArgumentException e) {
+            logger.warning("Invalid fragment drop config, keeping the previous drop table: " + e.getMessage());
+            return false;
+        }
     }
     
-    // Additional helper methods
-    private boolean canMobDropFragment(EntityType entityType) {
-        return mobDropMultipliers.containsKey(entityType) || 
-               godMobAssociations.values().stream().anyMatch(set -> set.contains(entityType));
+    private DropTable loadInitialDropTable() {
+        try {
+            return DropTable.load(plugin.getConfig(), logger);
+        } catch (IllegalArgumentException e) {
+            logger.warning("Invalid fragment drop config, using the default drop table: " + e.getMessage());
+            return DropTable.load(plugin.getConfig().getDefaults(), logger);
+        }
     }
     
-    private String determineGodTypeForMob(EntityType entityType) {
-        for (Map.Entry<String, Set<EntityType>> entry : godMobAssociations.entrySet()) {
-            if (entry.getValue().contains(entityType)) {
-                return entry.getKey();
+    // Helper methods for initialization
+    /**
+     * Maps every mob in the drop table to its kill counter, registering counters for mobs added in config
+     */
+    private Map<EntityType, Integer> buildKillCounters(DropTable table) {
+        Map<EntityType, Integer> counters = new EnumMap<>(EntityType.class);
+        for (EntityType type : EntityType.values()) {
+            if (!table.canMobDrop(type)) {
+                continue;
+            }
+            int counterIndex = ProgressCounters.registerKills(type.name());
+            if (counterIndex >= 0) {
+                counters.put(type, counterIndex);
+            } else {
+                logger.warning("Too many mobs in the drop table, kills of " + type.name() + " will not be counted");
             }
         }
-        return null;
+        return counters;
     }
     
+    // Additional helper methods
     private String determineGodTypeByLocation(Location location) {
-        World.Environment env = location.getWorld().getEnvironment();
-        int y = location.getBlockY();
-        
-        switch (env) {
+        return FragmentChances.chestGod(dimensionOf(location.getWorld().getEnvironment()), location.getBlockY(), rolls);
+    }
+    
+    private static int dimensionOf(World.Environment environment) {
+        switch (environment) {
+            case NORMAL:
+                return FragmentChances.OVERWORLD;
             case NETHER:
-                return ThreadLocalRandom.current().nextBoolean() ? "banishment" : "fallen";
+                return FragmentChances.NETHER;
             case THE_END:
-                return "veil";
-            case NORMAL:
+                return FragmentChances.THE_END;
             default:
-                if (y < -20) return "abyssal";
-                if (y < 30) return "fallen";
-                if (y > 100) return "tempest";
-                return "sylvan";
+                return FragmentChances.OTHER;
         }
     }
     
-    private int getWeightedFragmentNumber() {
-        double rand = ThreadLocalRandom.current().nextDouble();
-        
-        if (rand < 0.30) return 1;  // 30%
-        if (rand < 0.50) return 2;  // 20%
-        if (rand < 0.65) return 3;  // 15%
-        if (rand < 0.78) return 4;  // 13%
-        if (rand < 0.88) return 5;  // 10%
-        if (rand < 0.95) return 6;  // 7%
-        return 7;                   // 5%
-    }
-    
     private boolean addItemToChest(Inventory inventory, ItemStack item) {
         // Try center slots first
         int[] preferredSlots = {13, 12, 14, 11, 15, 4, 22};
@@ -565,65 +544,30 @@ public class FragmentSpawningService {
     
     private boolean isValidSpawnLocation(Location location) {
         String worldName = location.getWorld().getName();
-        String locationKey = worldName + ":" + location.getBlockX() + ":" + location.getBlockZ();
+        int x = location.getBlockX();
+        int z = location.getBlockZ();
         
-        // Check time cooldown
-        AtomicLong lastSpawn = lastSpawnTimes.get(locationKey);
-        if (lastSpawn != null) {
-            long timeSince = System.currentTimeMillis() - lastSpawn.get();
-            if (timeSince < 14400000) { // 4 hours
-                return false;
-            }
+        // Same spot within the last 4 hours
+        if (cooldowns.isLocationActive(worldName, x, z)) {
+            return false;
         }
         
-        // Check distance from other spawns
-        for (String key : lastSpawnTimes.keySet()) {
-            if (key.startsWith(worldName + ":")) {
-                String[] parts = key.split(":");
-                if (parts.length >= 3) {
-                    try {
-                        int x = Integer.parseInt(parts[1]);
-                        int z = Integer.parseInt(parts[2]);
-                        double distance = Math.sqrt(Math.pow(location.getBlockX() - x, 2) + 
-                                                  Math.pow(location.getBlockZ() - z, 2));
-                        
-                        if (distance < minDistanceBetweenFragments) {
-                            return false;
-                        }
-                    } catch (NumberFormatException e) {
-                        // Skip invalid entries
-                    }
-                }
-            }
+        // Any remembered spawn closer than min_distance
+        synchronized (recentSpawns) {
+            return !recentSpawns.hasSpawnWithin(worldName, x, z, minDistanceBetweenFragments, System.currentTimeMillis());
         }
-        
-        return true;
     }
     
     private void recordFragmentSpawn(Location location, Player player) {
         String worldName = location.getWorld().getName();
-        String locationKey = worldName + ":" + location.getBlockX() + ":" + location.getBlockZ();
-        String playerKey = player.getUniqueId().toString();
-        
-        long currentTime = System.currentTimeMillis();
-        lastSpawnTimes.put(locationKey, new AtomicLong(currentTime));
-        lastSpawnTimes.put(playerKey + "_chest", new AtomicLong(currentTime));
+        int x = location.getBlockX();
+        int z = location.getBlockZ();
         
-        // Cleanup old entries
-        cleanupOldEntries();
-    }
-    
-    private void recordFragmentDrop(Player player, String type) {
-        String playerKey = player.getUniqueId().toString();
-        lastSpawnTimes.put(playerKey + "_" + type, new AtomicLong(System.currentTimeMillis()));
-        
-        // Cleanup old entries
-        cleanupOldEntries();
-    }
-    
-    private void cleanupOldEntries() {
-        long cutoff = System.currentTimeMillis() - (48 * 60 * 60 * 1000); // 48 hours
-        lastSpawnTimes.entrySet().removeIf(entry -> entry.getValue().get() < cutoff);
+        synchronized (recentSpawns) {
+            recentSpawns.add(worldName, x, z, System.currentTimeMillis());
+        }
+        cooldowns.startLocation(worldName, x, z, LOCATION_COOLDOWN_MILLIS);
+        cooldowns.start(CooldownStore.Type.CHEST, player.getUniqueId(), playerChestCooldown);
     }
     
     private String formatLocation(Location loc) {
@@ -0,0 +1,42 @@
+package com.fallengod.testament.data;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fixed ordering of the six gods used by compact storage formats
+ * The index of a god in this list is what gets written to disk, so new gods
+ * must only ever be appended
+ */
+public final class GodTypes {
+
+    private static final List<String> ORDER = Collections.unmodifiableList(
+        Arrays.asList("fallen", "banishment", "abyssal", "sylvan", "tempest", "veil"));
+
+    public static final int COUNT = ORDER.size();
+
+    private GodTypes() {
+    }
+
+    /**
+     * Gets the storage index of a god type, or -1 if unknown
+     */
+    public static int indexOf(String godType) {
+        return godType == null ? -1 : ORDER.indexOf(godType.toLowerCase());
+    }
+
+    /**
+     * Gets the god type for a storage index, or null if out of range
+     */
+    public static String nameOf(int index) {
+        return index >= 0 && index < COUNT ? ORDER.get(index) : null;
+    }
+
+    /**
+     * Gets all god types in storage order
+     */
+    public static List<String> all() {
+        return ORDER;
+    }
+}
@@ -1,19 +1,43 @@
 package com.fallengod.testament.listeners;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.logging.Logger;
 
 import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.attribute.Attribute;
+import org.bukkit.attribute.AttributeInstance;
+import org.bukkit.attribute.AttributeModifier;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.EntityPotionEffectEvent;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.inventory.EquipmentSlotGroup;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 import org.bukkit.scheduler.BukkitRunnable;
@@ -24,19 +48,49 @@ import com.fallengod.testament.items.HeartOfFallenGod;
 /**
  * Handles Heart of Fallen God effect events and Veil of Nullification interactions
  * Manages the complex interaction between Heart power and Veil nullification
+ *
+ * Possession is tracked from inventory events: an event that may move a Heart
+ * or Veil queues its player, and queued players are rescanned on the next
+ * tick. A slow reconciliation pass rescans a few online players per tick to
+ * catch anything the events miss, such as items given by commands.
  */
 public class HeartEffectListener implements Listener {
     
+    // Permanent effects kept on holders, as bits of an applied-effects mask
+    private static final PotionEffectType[] EFFECT_TYPES = {
+        PotionEffectType.STRENGTH, PotionEffectType.REGENERATION,
+        PotionEffectType.SLOW_FALLING, PotionEffectType.NIGHT_VISION
+    };
+    private static final int SLOW_FALLING_EFFECT = 0b00100;
+    private static final int NIGHT_VISION_EFFECT = 0b01000;
+    // The Heart's max health modifier
+    private static final int HEALTH_BOOST = 0b10000;
+    private static final int HEART_EFFECTS = 0b00011 | HEALTH_BOOST;
+    private static final double BASE_MAX_HEALTH = 20.0;
+    
     private final HeartOfFallenGod heartOfFallenGod;
     private final FallenGodPlugin plugin;
     private final Logger logger;
     
-    // Track players with active Heart effects
-    private final Map<UUID, Boolean> playersWithHeart = new HashMap<>();
-    // Track players with active Veil effects
-    private final Map<UUID, Boolean> playersWithVeil = new HashMap<>();
+    // Track players with active Heart effects, by position
+    private final HolderGrid playersWithHeart;
+    // Track players with active Veil effects, by position
+    private final HolderGrid playersWithVeil;
+    // Scratch list for Heart holders near a moving Veil holder
+    private final List<Player> nearbyHeartHolders = new ArrayList<>();
     // Track nullified players (Heart holders near Veil holders)
     private final Map<UUID, Boolean> nullifiedPlayers = new HashMap<>();
+    // Effects this listener has put on each online player, mirrored to the
+    // player's persistent data so they are known again after a relog
+    private final Map<UUID, Integer> appliedEffects = new HashMap<>();
+    private final NamespacedKey appliedEffectsKey;
+    private final NamespacedKey healthBoostKey;
+    // Players whose inventory may have changed, rescanned on the next tick
+    private final Set<UUID> pendingChecks = new LinkedHashSet<>();
+    private boolean pendingChecksScheduled;
+    // Players left in the current reconciliation round
+    private final Deque<UUID> reconcileQueue = new ArrayDeque<>();
+    private int reconcileBatch = 1;
     
     // Configuration
     private final boolean heartEnabled;
@@ -45,6 +99,9 @@ public class HeartEffectListener implements Listener {
     private final int extraHearts;
     private final int strengthLevel;
     private final int regenerationLevel;
+    private final long reconcileIntervalTicks;
+    private final int veilEffects;
+    private final int[] effectAmplifiers;
     
     public HeartEffectListener(FallenGodPlugin plugin, HeartOfFallenGod heartOfFallenGod) {
         this.plugin = plugin;
@@ -58,21 +115,29 @@ public class HeartEffectListener implements Listener {
         this.extraHearts = plugin.getConfig().getInt("heart_of_fallen_god.extra_hearts", 15);
         this.strengthLevel = plugin.getConfig().getInt("heart_of_fallen_god.strength_level", 1);
         this.regenerationLevel = plugin.getConfig().getInt("heart_of_fallen_god.regeneration_level", 2);
+        this.veilEffects =
+            (plugin.getConfig().getBoolean("heart_of_fallen_god.nullification.veil_effects.slow_falling", true) ? SLOW_FALLING_EFFECT : 0)
+            | (plugin.getConfig().getBoolean("heart_of_fallen_god.nullification.veil_effects.night_vision", true) ? NIGHT_VISION_EFFECT : 0);
+        this.effectAmplifiers = new int[] {strengthLevel - 1, regenerationLevel - 1, 0, 0};
+        this.appliedEffectsKey = new NamespacedKey(plugin, "applied_effects");
+        this.healthBoostKey = new NamespacedKey(plugin, "heart_health");
+        this.reconcileIntervalTicks = Math.max(1, plugin.getConfig().getLong("heart_of_fallen_god.reconcile_interval", 60)) * 20L;
+        
+        // Cells as wide as the range keep every nullification check within 3x3 cells
+        this.playersWithHeart = new HolderGrid(nullificationRange);
+        this.playersWithVeil = new HolderGrid(nullificationRange);
         
-        // Start the effect monitoring task
-        startEffectMonitoringTask();
+        // Start the reconciliation task
+        startReconciliationTask();
         
         logger.info("Heart Effect Listener initialized - Heart: " + heartEnabled + ", Nullification: " + nullificationEnabled);
     }
     
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJoin(PlayerJoinEvent event) {
-        Player player = event.getPlayer();
-        
-        // Check player's inventory for Heart or Veil items
-        plugin.getServer().getScheduler().runTaskLater(plugin, () -> {
-            updatePlayerEffects(player);
-        }, 20L); // 1 second delay to ensure player is fully loaded
+        // Effects and the health modifier are saved with the player, so this
+        // only has to find their Heart or Veil items again
+        requestPossessionCheck(event.getPlayer());
     }
     
     @EventHandler(priority = EventPriority.MONITOR)
@@ -81,8 +146,15 @@ public class HeartEffectListener implements Listener {
         
         // Clean up tracking maps
         playersWithHeart.remove(playerId);
-        playersWithVeil.remove(playerId);
         nullifiedPlayers.remove(playerId);
+        appliedEffects.remove(playerId);
+        pendingChecks.remove(playerId);
+        if (playersWithVeil.contains(playerId)) {
+            playersWithVeil.remove(playerId);
+            // Release the Heart holders this Veil was nullifying
+            Location location = event.getPlayer().getLocation();
+            updateNullificationForNearbyPlayers(event.getPlayer(), location, location);
+        }
     }
     
     @EventHandler(priority = EventPriority.MONITOR)
@@ -95,207 +167,380 @@ public class HeartEffectListener implements Listener {
             return;
         }
         
-        Player player = event.getPlayer();
+        onHolderMoved(event.getPlayer(), event.getFrom(), event.getTo());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        if (!nullificationEnabled || event.getTo() == null) {
+            return;
+        }
+        
+        onHolderMoved(event.getPlayer(), event.getFrom(), event.getTo());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryClick(InventoryClickEvent event) {
+        if (!(event.getWhoClicked() instanceof Player)) {
+            return;
+        }
+        Player player = (Player) event.getWhoClicked();
+        
+        boolean relevant = isTrackedMaterial(event.getCurrentItem()) || isTrackedMaterial(event.getCursor());
+        if (!relevant && event.getClick() == ClickType.NUMBER_KEY && event.getHotbarButton() >= 0) {
+            relevant = isTrackedMaterial(player.getInventory().getItem(event.getHotbarButton()));
+        }
+        if (!relevant && event.getClick() == ClickType.SWAP_OFFHAND) {
+            relevant = isTrackedMaterial(player.getInventory().getItemInOffHand());
+        }
+        if (relevant) {
+            requestPossessionCheck(player);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryDrag(InventoryDragEvent event) {
+        if (event.getWhoClicked() instanceof Player && isTrackedMaterial(event.getOldCursor())) {
+            requestPossessionCheck((Player) event.getWhoClicked());
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemPickup(EntityPickupItemEvent event) {
+        if (event.getEntity() instanceof Player && isTrackedMaterial(event.getItem().getItemStack())) {
+            requestPossessionCheck((Player) event.getEntity());
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemDrop(PlayerDropItemEvent event) {
+        if (isTrackedMaterial(event.getItemDrop().getItemStack())) {
+            requestPossessionCheck(event.getPlayer());
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryMoveItem(InventoryMoveItemEvent event) {
+        if (!isTrackedMaterial(event.getItem())) {
+            return;
+        }
+        checkIfPlayerInventory(event.getSource());
+        checkIfPlayerInventory(event.getDestination());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerDeath(PlayerDeathEvent event) {
+        requestPossessionCheck(event.getEntity());
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPotionEffectRemoved(EntityPotionEffectEvent event) {
+        if (!(event.getEntity() instanceof Player) || event.getCause() == EntityPotionEffectEvent.Cause.PLUGIN
+            || (event.getAction() != EntityPotionEffectEvent.Action.REMOVED
+                && event.getAction() != EntityPotionEffectEvent.Action.CLEARED)) {
+            return;
+        }
+        
+        Player player = (Player) event.getEntity();
+        Integer applied = appliedEffects.get(player.getUniqueId());
+        int bit = effectBit(event.getModifiedType());
+        if (applied == null || (applied & bit) == 0) {
+            return;
+        }
+        
+        // Milk, death or a command took off one of our effects; put it back if still deserved
+        setAppliedEffects(player, applied & ~bit);
+        requestPossessionCheck(player);
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        // Death clears potion effects and attribute modifiers; look at the player afresh
+        appliedEffects.remove(event.getPlayer().getUniqueId());
+        requestPossessionCheck(event.getPlayer());
+    }
+    
+    /**
+     * Queues a player's inventory to be rescanned for Heart and Veil items on the next tick
+     * Call after giving or taking these items outside of inventory events
+     */
+    public void requestPossessionCheck(Player player) {
+        if (!heartEnabled) return;
+        
+        pendingChecks.add(player.getUniqueId());
+        if (!pendingChecksScheduled) {
+            pendingChecksScheduled = true;
+            plugin.getServer().getScheduler().runTask(plugin, this::runPendingChecks);
+        }
+    }
+    
+    private void runPendingChecks() {
+        pendingChecksScheduled = false;
+        UUID[] playerIds = pendingChecks.toArray(new UUID[0]);
+        pendingChecks.clear();
+        
+        for (UUID playerId : playerIds) {
+            Player player = plugin.getServer().getPlayer(playerId);
+            if (player == null || !player.isOnline()) continue;
+            try {
+                updatePlayerEffects(player);
+            } catch (Exception e) {
+                logger.warning("Error checking Heart and Veil possession of " + player.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    private void checkIfPlayerInventory(Inventory inventory) {
+        if (inventory != null && inventory.getHolder() instanceof Player) {
+            requestPossessionCheck((Player) inventory.getHolder());
+        }
+    }
+    
+    /**
+     * Cheap pre-filter for items that may be a Heart or Veil, without reading item meta
+     */
+    private static boolean isTrackedMaterial(ItemStack item) {
+        return item != null && (item.getType() == Material.NETHER_STAR || item.getType() == Material.PHANTOM_MEMBRANE);
+    }
+    
+    /**
+     * Updates the grids and nullification after a Heart or Veil holder moved
+     */
+    private void onHolderMoved(Player player, Location from, Location to) {
         UUID playerId = player.getUniqueId();
         
-        // Check if this player has Heart or Veil
-        if (playersWithHeart.containsKey(playerId) || playersWithVeil.containsKey(playerId)) {
-            // Update nullification status for nearby players
-            updateNullificationForNearbyPlayers(player);
+        // A moving Heart holder may have entered or left a Veil's range
+        if (playersWithHeart.contains(playerId)) {
+            playersWithHeart.update(player, to);
+            updateNullificationStatus(player, to);
+        }
+        
+        // A moving Veil holder may have reached or released Heart holders
+        if (playersWithVeil.contains(playerId)) {
+            playersWithVeil.update(player, to);
+            updateNullificationForNearbyPlayers(player, from, to);
         }
     }
     
     /**
-     * Starts the task that monitors and applies Heart/Veil effects
+     * Starts the task that rescans every online player once per reconcile_interval
+     * Each tick takes the next few players of the round, so the cost is spread evenly
      */
-    private void startEffectMonitoringTask() {
+    private void startReconciliationTask() {
         new BukkitRunnable() {
             @Override
             public void run() {
                 if (!heartEnabled) return;
                 
                 try {
-                    for (Player player : plugin.getServer().getOnlinePlayers()) {
-                        updatePlayerEffects(player);
+                    if (reconcileQueue.isEmpty()) {
+                        for (Player player : plugin.getServer().getOnlinePlayers()) {
+                            reconcileQueue.add(player.getUniqueId());
+                        }
+                        reconcileBatch = (int) Math.max(1, (reconcileQueue.size() + reconcileIntervalTicks - 1) / reconcileIntervalTicks);
+                    }
+                    
+                    for (int i = 0; i < reconcileBatch && !reconcileQueue.isEmpty(); i++) {
+                        Player player = plugin.getServer().getPlayer(reconcileQueue.poll());
+                        if (player != null && player.isOnline()) {
+                            updatePlayerEffects(player);
+                        }
                     }
                 } catch (Exception e) {
-                    logger.warning("Error in Heart effect monitoring task: " + e.getMessage());
+                    logger.warning("Error in Heart effect reconciliation task: " + e.getMessage());
                 }
             }
-        }.runTaskTimer(plugin, 100L, 100L); // Run every 5 seconds (100 ticks)
+        }.runTaskTimer(plugin, 100L, 1L);
     }
     
     /**
      * Updates a player's effects based on their inventory
      */
     private void updatePlayerEffects(Player player) {
+        // Respawning queues another check
+        if (player.isDead()) return;
+        
         UUID playerId = player.getUniqueId();
         
-        boolean hasHeart = hasHeartOfFallenGod(player);
-        boolean hasVeil = hasVeilOfNullification(player);
+        // One pass over the inventory for both items
+        boolean hasHeart = false;
+        boolean hasVeil = false;
+        for (ItemStack item : player.getInventory().getContents()) {
+            if (!isTrackedMaterial(item)) continue;
+            if (!hasHeart && heartOfFallenGod.isHeartOfFallenGod(item)) {
+                hasHeart = true;
+            } else if (!hasVeil && heartOfFallenGod.isVeilOfNullification(item)) {
+                hasVeil = true;
+            }
+            if (hasHeart && hasVeil) break;
+        }
+        boolean hadVeil = playersWithVeil.contains(playerId);
         
-        // Update tracking
+        // Update tracking, which also refreshes positions after teleports
         if (hasHeart) {
-            playersWithHeart.put(playerId, true);
+            playersWithHeart.update(player, player.getLocation());
         } else {
             playersWithHeart.remove(playerId);
         }
         
         if (hasVeil) {
-            playersWithVeil.put(playerId, true);
+            playersWithVeil.update(player, player.getLocation());
         } else {
             playersWithVeil.remove(playerId);
         }
         
-        // Apply or remove effects
-        if (hasHeart) {
-            applyHeartEffects(player);
-        } else {
-            removeHeartEffects(player);
-        }
-        
-        if (hasVeil) {
-            applyVeilEffects(player);
-        } else {
-            removeVeilEffects(player);
-        }
-        
         // Update nullification status
         if (nullificationEnabled) {
             updateNullificationStatus(player);
-        }
-    }
-    
-    /**
-     * Checks if a player has the Heart of Fallen God in their inventory
-     */
-    private boolean hasHeartOfFallenGod(Player player) {
-        for (ItemStack item : player.getInventory().getContents()) {
-            if (heartOfFallenGod.isHeartOfFallenGod(item)) {
-                return true;
+            
+            // Gaining or losing a Veil changes the Heart holders around it
+            if (hasVeil != hadVeil) {
+                Location location = player.getLocation();
+                updateNullificationForNearbyPlayers(player, location, location);
             }
         }
-        return false;
+        
+        syncEffects(player, desiredEffects(playerId));
     }
     
     /**
-     * Checks if a player has the Veil of Nullification in their inventory
+     * Gets the effect bits a player should have from what they hold
      */
-    private boolean hasVeilOfNullification(Player player) {
-        for (ItemStack item : player.getInventory().getContents()) {
-            if (heartOfFallenGod.isVeilOfNullification(item)) {
-                return true;
-            }
+    private int desiredEffects(UUID playerId) {
+        int desired = 0;
+        if (playersWithHeart.contains(playerId) && !nullifiedPlayers.containsKey(playerId)) {
+            desired |= HEART_EFFECTS;
+        }
+        if (playersWithVeil.contains(playerId)) {
+            desired |= veilEffects;
         }
-        return false;
+        return desired;
     }
     
     /**
-     * Applies Heart of Fallen God effects to a player
+     * Adds and removes permanent effects and the health modifier so the player has exactly the desired ones
+     * Only effects that differ from what was applied before are touched.
      */
-    private void applyHeartEffects(Player player) {
-        UUID playerId = player.getUniqueId();
-        
-        // Check if player is nullified
-        if (nullifiedPlayers.containsKey(playerId)) {
-            // Heart effects are nullified
-            removeHeartEffects(player);
-            // Notify player they're being nullified (timing logic removed for compatibility)
-            player.sendMessage("§5§l◊ Your divine power is being nullified by a nearby Veil! ◊");
+    private void syncEffects(Player player, int desired) {
+        int applied = getAppliedEffects(player);
+        int changed = desired ^ applied;
+        if (changed == 0) {
             return;
         }
         
-        try {
-            // Set max health (20 base + extra hearts)
-            double maxHealth = 20.0 + (extraHearts * 2.0); // Each heart = 2 health points
-            if (player.getMaxHealth() != maxHealth) {
-                player.setMaxHealth(maxHealth);
-                player.setHealth(maxHealth); // Heal to full when first equipped
-                
-                player.sendMessage("§4§l❤ The Heart of the Fallen God pulses with divine power! ❤");
-                player.sendMessage("§c§lYou now have " + (int)(maxHealth / 2) + " hearts!");
-            }
-            
-            // Apply permanent effects
-            applyPermanentEffect(player, PotionEffectType.STRENGTH, strengthLevel - 1);
-            applyPermanentEffect(player, PotionEffectType.REGENERATION, regenerationLevel - 1);
+        if ((changed & HEALTH_BOOST) != 0) {
+            setHealthBoost(player, (desired & HEALTH_BOOST) != 0);
+        }
+        
+        for (int i = 0; i < EFFECT_TYPES.length; i++) {
+            int bit = 1 << i;
+            if ((changed & bit) == 0) continue;
             
-        } catch (Exception e) {
-            logger.warning("Error applying Heart effects to " + player.getName() + ": " + e.getMessage());
+            if ((desired & bit) != 0) {
+                applyPermanentEffect(player, EFFECT_TYPES[i], effectAmplifiers[i]);
+            } else {
+                try {
+                    player.removePotionEffect(EFFECT_TYPES[i]);
+                } catch (Exception e) {
+                    logger.warning("Failed to remove effect " + EFFECT_TYPES[i].getName() + " from " + player.getName() + ": " + e.getMessage());
+                }
+            }
         }
+        setAppliedEffects(player, desired);
     }
     
-    /**
-     * Removes Heart of Fallen God effects from a player
-     */
-    private void removeHeartEffects(Player player) {
-        try {
-            // Reset max health to normal
-            if (player.getMaxHealth() > 20.0) {
-                player.setMaxHealth(20.0);
-                if (player.getHealth() > 20.0) {
-                    player.setHealth(20.0);
-                }
+    private int getAppliedEffects(Player player) {
+        Integer applied = appliedEffects.get(player.getUniqueId());
+        if (applied == null) {
+            // First look since joining or respawning: effects applied before,
+            // and whether the health modifier survived
+            Byte stored = player.getPersistentDataContainer().get(appliedEffectsKey, PersistentDataType.BYTE);
+            applied = stored != null ? stored & 0xFF & ~HEALTH_BOOST : 0;
+            if (hasHealthBoost(player)) {
+                applied |= HEALTH_BOOST;
             }
-            
-            // Remove Heart-specific effects
-            player.removePotionEffect(PotionEffectType.STRENGTH);
-            player.removePotionEffect(PotionEffectType.REGENERATION);
-            
-        } catch (Exception e) {
-            logger.warning("Error removing Heart effects from " + player.getName() + ": " + e.getMessage());
+            appliedEffects.put(player.getUniqueId(), applied);
+        }
+        return applied;
+    }
+    
+    private void setAppliedEffects(Player player, int applied) {
+        appliedEffects.put(player.getUniqueId(), applied);
+        if (applied == 0) {
+            player.getPersistentDataContainer().remove(appliedEffectsKey);
+        } else {
+            player.getPersistentDataContainer().set(appliedEffectsKey, PersistentDataType.BYTE, (byte) applied);
         }
     }
     
+    private static int effectBit(PotionEffectType effectType) {
+        for (int i = 0; i < EFFECT_TYPES.length; i++) {
+            if (EFFECT_TYPES[i].equals(effectType)) {
+                return 1 << i;
+            }
+        }
+        return 0;
+    }
+    
+    private boolean hasHealthBoost(Player player) {
+        AttributeInstance maxHealth = player.getAttribute(Attribute.MAX_HEALTH);
+        return maxHealth != null && maxHealth.getModifier(healthBoostKey) != null;
+    }
+    
     /**
-     * Applies Veil of Nullification effects to a player
+     * Adds or removes the Heart's max health modifier
+     * Other plugins' changes to max health are left in place.
      */
-    private void applyVeilEffects(Player player) {
+    private void setHealthBoost(Player player, boolean boosted) {
         try {
-            // Apply Veil effects
-            boolean slowFalling = plugin.getConfig().getBoolean("heart_of_fallen_god.nullification.veil_effects.slow_falling", true);
-            boolean nightVision = plugin.getConfig().getBoolean("heart_of_fallen_god.nullification.veil_effects.night_vision", true);
-            
-            if (slowFalling) {
-                applyPermanentEffect(player, PotionEffectType.SLOW_FALLING, 0);
+            AttributeInstance maxHealth = player.getAttribute(Attribute.MAX_HEALTH);
+            if (maxHealth == null) {
+                return;
             }
             
-            if (nightVision) {
-                applyPermanentEffect(player, PotionEffectType.NIGHT_VISION, 0);
+            // Older versions raised the base value itself; give that back
+            double legacyMaxHealth = BASE_MAX_HEALTH + extraHearts * 2.0;
+            if (maxHealth.getBaseValue() == legacyMaxHealth && legacyMaxHealth != BASE_MAX_HEALTH) {
+                maxHealth.setBaseValue(BASE_MAX_HEALTH);
             }
             
+            maxHealth.removeModifier(healthBoostKey);
+            if (boosted) {
+                // Each heart = 2 health points
+                maxHealth.addModifier(new AttributeModifier(healthBoostKey, extraHearts * 2.0,
+                    AttributeModifier.Operation.ADD_NUMBER, EquipmentSlotGroup.ANY));
+                player.setHealth(maxHealth.getValue()); // Heal to full when first equipped
+                
+                player.sendMessage("§4§l❤ The Heart of the Fallen God pulses with divine power! ❤");
+                player.sendMessage("§c§lYou now have " + (int) (maxHealth.getValue() / 2) + " hearts!");
+            } else if (player.getHealth() > maxHealth.getValue()) {
+                player.setHealth(maxHealth.getValue());
+            }
         } catch (Exception e) {
-            logger.warning("Error applying Veil effects to " + player.getName() + ": " + e.getMessage());
+            logger.warning("Error updating Heart health for " + player.getName() + ": " + e.getMessage());
         }
     }
     
     /**
-     * Removes Veil of Nullification effects from a player
+     * Updates nullification status for a player
      */
-    private void removeVeilEffects(Player player) {
-        try {
-            // Remove Veil-specific effects
-            player.removePotionEffect(PotionEffectType.SLOW_FALLING);
-            player.removePotionEffect(PotionEffectType.NIGHT_VISION);
-            
-        } catch (Exception e) {
-            logger.warning("Error removing Veil effects from " + player.getName() + ": " + e.getMessage());
-        }
+    private void updateNullificationStatus(Player player) {
+        updateNullificationStatus(player, player.getLocation());
     }
     
     /**
-     * Updates nullification status for a player
+     * Updates nullification status for a player at the given location
      */
-    private void updateNullificationStatus(Player player) {
+    private void updateNullificationStatus(Player player, Location location) {
         UUID playerId = player.getUniqueId();
         
         // Only Heart holders can be nullified
-        if (!playersWithHeart.containsKey(playerId)) {
+        if (!playersWithHeart.contains(playerId)) {
             nullifiedPlayers.remove(playerId);
             return;
         }
         
-        boolean isNullified = isPlayerNullified(player);
+        boolean isNullified = isPlayerNullified(player, location);
         boolean wasNullified = nullifiedPlayers.containsKey(playerId);
         
         if (isNullified && !wasNullified) {
@@ -304,7 +549,7 @@ public class HeartEffectListener implements Listener {
             player.sendMessage("§5§l◊ A Veil of Nullification suppresses your divine power! ◊");
             
             // Remove Heart effects
-            removeHeartEffects(player);
+            syncEffects(player, desiredEffects(playerId));
             
         } else if (!isNullified && wasNullified) {
             // Player is no longer nullified
@@ -312,46 +557,31 @@ public class HeartEffectListener implements Listener {
             player.sendMessage("§4§l❤ Your divine power returns as the Veil's influence fades! ❤");
             
             // Reapply Heart effects
-            applyHeartEffects(player);
+            syncEffects(player, desiredEffects(playerId));
         }
     }
     
     /**
-     * Updates nullification for all players near the given player
+     * Updates nullification for the Heart holders around a moving Veil holder
+     * Holders near the old position are included so the ones left behind are released
      */
-    private void updateNullificationForNearbyPlayers(Player player) {
-        Location playerLoc = player.getLocation();
+    private void updateNullificationForNearbyPlayers(Player veilHolder, Location from, Location to) {
+        nearbyHeartHolders.clear();
+        playersWithHeart.collectNear(from, nearbyHeartHolders);
+        playersWithHeart.collectNear(to, nearbyHeartHolders);
         
-        for (Player nearbyPlayer : player.getWorld().getPlayers()) {
-            if (nearbyPlayer.equals(player)) continue;
-            
-            double distance = playerLoc.distance(nearbyPlayer.getLocation());
-            if (distance <= nullificationRange) {
-                updateNullificationStatus(nearbyPlayer);
-            }
+        for (Player nearbyPlayer : nearbyHeartHolders) {
+            if (nearbyPlayer.equals(veilHolder)) continue;
+            updateNullificationStatus(nearbyPlayer);
         }
+        nearbyHeartHolders.clear();
     }
     
     /**
-     * Checks if a player is currently being nullified by nearby Veil holders
+     * Checks if a player at the given location is being nullified by nearby Veil holders
      */
-    private boolean isPlayerNullified(Player player) {
-        Location playerLoc = player.getLocation();
-        
-        // Check for nearby Veil holders
-        for (Player otherPlayer : player.getWorld().getPlayers()) {
-            if (otherPlayer.equals(player)) continue;
-            
-            // Check if other player has Veil
-            if (playersWithVeil.containsKey(otherPlayer.getUniqueId())) {
-                double distance = playerLoc.distance(otherPlayer.getLocation());
-                if (distance <= nullificationRange) {
-                    return true;
-                }
-            }
-        }
-        
-        return false;
+    private boolean isPlayerNullified(Player player, Location location) {
+        return playersWithVeil.hasHolderWithin(location, nullificationRange, player.getUniqueId());
     }
     
     /**
@@ -359,10 +589,7 @@ public class HeartEffectListener implements Listener {
      */
     private void applyPermanentEffect(Player player, PotionEffectType effectType, int amplifier) {
         try {
-            // Remove existing effect first
-            player.removePotionEffect(effectType);
-            
-            // Add new permanent effect
+            // A stronger effect from elsewhere is kept; ours waits underneath it
             PotionEffect effect = new PotionEffect(effectType, Integer.MAX_VALUE, amplifier, false, false);
             player.addPotionEffect(effect);
             
@@ -392,8 +619,7 @@ public class HeartEffectListener implements Listener {
         // Remove all Heart effects from players
         for (Player player : plugin.getServer().getOnlinePlayers()) {
             try {
-                removeHeartEffects(player);
-                removeVeilEffects(player);
+                syncEffects(player, 0);
             } catch (Exception e) {
                 logger.warning("Error cleaning up effects for " + player.getName() + ": " + e.getMessage());
             }
@@ -403,6 +629,7 @@ public class HeartEffectListener implements Listener {
         playersWithHeart.clear();
         playersWithVeil.clear();
         nullifiedPlayers.clear();
+        appliedEffects.clear();
         
         logger.info("Heart Effect Listener cleaned up successfully");
     }
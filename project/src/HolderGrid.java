@@ -0,0 +1,180 @@
+package com.fallengod.testament.listeners;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+
+/**
+ * Uniform grid of the players holding one kind of item, one grid per world
+ *
+ * Cells are as wide as the nullification range, so "any holder within R"
+ * only needs the 3x3 columns of cells around a point, compared by squared
+ * distance. Moving a holder only relinks them when they cross a cell
+ * boundary. Main thread only.
+ */
+class HolderGrid {
+
+    private static final class Holder {
+        final Player player;
+        String world;
+        long cell;
+        double x;
+        double y;
+        double z;
+
+        Holder(Player player) {
+            this.player = player;
+        }
+    }
+
+    private final double cellSize;
+    private final Map<UUID, Holder> holders = new HashMap<>();
+    // world -> cell key -> holders in that cell
+    private final Map<String, Map<Long, List<Holder>>> grids = new HashMap<>();
+
+    HolderGrid(double cellSize) {
+        this.cellSize = Math.max(1.0, cellSize);
+    }
+
+    /**
+     * Adds a holder at the given location, or moves them there
+     */
+    void update(Player player, Location location) {
+        String world = location.getWorld().getName();
+        long cell = cellKey(cellOf(location.getX()), cellOf(location.getZ()));
+
+        Holder holder = holders.get(player.getUniqueId());
+        if (holder == null) {
+            holder = new Holder(player);
+            holders.put(player.getUniqueId(), holder);
+            link(holder, world, cell);
+        } else if (holder.cell != cell || !holder.world.equals(world)) {
+            unlink(holder);
+            link(holder, world, cell);
+        }
+        holder.x = location.getX();
+        holder.y = location.getY();
+        holder.z = location.getZ();
+    }
+
+    void remove(UUID playerId) {
+        Holder holder = holders.remove(playerId);
+        if (holder != null) {
+            unlink(holder);
+        }
+    }
+
+    boolean contains(UUID playerId) {
+        return holders.containsKey(playerId);
+    }
+
+    int size() {
+        return holders.size();
+    }
+
+    void clear() {
+        holders.clear();
+        grids.clear();
+    }
+
+    /**
+     * Checks for a holder other than the excluded player within the range
+     * The range must not exceed the cell size
+     */
+    boolean hasHolderWithin(Location location, double range, UUID excluded) {
+        Map<Long, List<Holder>> grid = grids.get(location.getWorld().getName());
+        if (grid == null) {
+            return false;
+        }
+
+        double rangeSquared = range * range;
+        double x = location.getX();
+        double y = location.getY();
+        double z = location.getZ();
+        int cellX = cellOf(x);
+        int cellZ = cellOf(z);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                List<Holder> cellHolders = grid.get(cellKey(cellX + dx, cellZ + dz));
+                if (cellHolders == null) {
+                    continue;
+                }
+                for (Holder holder : cellHolders) {
+                    double distX = holder.x - x;
+                    double distY = holder.y - y;
+                    double distZ = holder.z - z;
+                    if (distX * distX + distY * distY + distZ * distZ <= rangeSquared
+                        && !holder.player.getUniqueId().equals(excluded)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds every holder in the 3x3 cells around a location to the list, skipping ones already in it
+     * That is everyone within range of the location, plus some further away.
+     */
+    void collectNear(Location location, List<Player> out) {
+        Map<Long, List<Holder>> grid = grids.get(location.getWorld().getName());
+        if (grid == null) {
+            return;
+        }
+
+        int cellX = cellOf(location.getX());
+        int cellZ = cellOf(location.getZ());
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                List<Holder> cellHolders = grid.get(cellKey(cellX + dx, cellZ + dz));
+                if (cellHolders == null) {
+                    continue;
+                }
+                for (Holder holder : cellHolders) {
+                    if (!out.contains(holder.player)) {
+                        out.add(holder.player);
+                    }
+                }
+            }
+        }
+    }
+
+    private void link(Holder holder, String world, long cell) {
+        holder.world = world;
+        holder.cell = cell;
+        grids.computeIfAbsent(world, k -> new HashMap<>())
+            .computeIfAbsent(cell, k -> new ArrayList<>(2))
+            .add(holder);
+    }
+
+    private void unlink(Holder holder) {
+        Map<Long, List<Holder>> grid = grids.get(holder.world);
+        if (grid == null) {
+            return;
+        }
+        List<Holder> cellHolders = grid.get(holder.cell);
+        if (cellHolders != null) {
+            cellHolders.remove(holder);
+            if (cellHolders.isEmpty()) {
+                grid.remove(holder.cell);
+            }
+        }
+        if (grid.isEmpty()) {
+            grids.remove(holder.world);
+        }
+    }
+
+    private int cellOf(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,48 @@
+package com.fallengod.testament.listeners;
+
+import com.fallengod.testament.FallenGodPlugin;
+import com.fallengod.testament.services.FragmentSpawningService;
+import org.bukkit.block.Container;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.LootGenerateEvent;
+
+/**
+ * Rolls chest fragments when structure loot is generated (chest_mode: loot)
+ * Used instead of ChestInteractionListener, so opening ordinary storage
+ * containers costs nothing
+ */
+public class LootChestListener implements Listener {
+
+    private final FragmentSpawningService fragmentSpawningService;
+    private final FallenGodPlugin plugin;
+
+    public LootChestListener(FallenGodPlugin plugin, FragmentSpawningService fragmentSpawningService) {
+        this.plugin = plugin;
+        this.fragmentSpawningService = fragmentSpawningService;
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onLootGenerate(LootGenerateEvent event) {
+        // Only loot generated for a player, e.g. not by hoppers or explosions
+        if (!(event.getEntity() instanceof Player)) {
+            return;
+        }
+
+        // Only block containers (chests, barrels, ...), not minecarts
+        if (!(event.getInventoryHolder() instanceof Container)) {
+            return;
+        }
+
+        try {
+            Container container = (Container) event.getInventoryHolder();
+            fragmentSpawningService.handleLootGenerate(container.getLocation(), container.getType(),
+                (Player) event.getEntity(), event.getLoot());
+
+        } catch (Exception e) {
+            plugin.getLogger().warning("Error handling loot generation: " + e.getMessage());
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package com.fallengod.testament.listeners;
 
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.Plugin;
 
 import com.fallengod.testament.data.PlayerTestamentDataStore;
 
 /**
- * Handles saving player data on logout
+ * Loads player data ahead of login and saves it on logout
  */
 public class PlayerDataSaveListener implements Listener {
     private final PlayerTestamentDataStore dataStore;
@@ -19,12 +22,32 @@ public class PlayerDataSaveListener implements Listener {
         this.plugin = plugin;
     }
 
-    @EventHandler
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+
+        // Runs off the main thread, so storage I/O here never stalls a tick
+        try {
+            dataStore.preload(event.getUniqueId());
+        } catch (Exception e) {
+            plugin.getLogger().warning("Failed to preload testament progress for " + event.getName() + ": " + e.getMessage());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        dataStore.markOnline(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerQuit(PlayerQuitEvent event) {
         try {
-            dataStore.save();
+            dataStore.save(event.getPlayer().getUniqueId());
         } catch (Exception e) {
             plugin.getLogger().warning("Failed to save player testament progress on logout: " + e.getMessage());
         }
+        dataStore.markOffline(event.getPlayer().getUniqueId());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,186 @@
+package com.fallengod.testament.data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Single-writer pipeline that persists progress snapshots off the main thread
+ *
+ * Snapshots are taken on the caller's thread and queued per player; a newer
+ * snapshot replaces one that has not been written yet, so a burst of saves
+ * for the same player collapses into one write. Queued snapshots are handed
+ * to the backend in batches so it can write them in one transaction.
+ */
+public class PlayerDataSaveQueue {
+
+    private static final int BATCH_SIZE = 256;
+
+    private final PlayerDataStorage storage;
+    private final Logger logger;
+    private final ExecutorService writer;
+    private final Map<UUID, PlayerProgressSnapshot> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    // Batch currently being written, still visible to getPending()
+    private volatile Map<UUID, PlayerProgressSnapshot> inFlight = Collections.emptyMap();
+
+    public PlayerDataSaveQueue(PlayerDataStorage storage, Logger logger) {
+        this.storage = storage;
+        this.logger = logger;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "FallenGod-SaveWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a snapshot for writing, replacing any unwritten one for the same player
+     */
+    public void submit(PlayerProgressSnapshot snapshot) {
+        pending.put(snapshot.getUuid(), snapshot);
+        scheduleDrain();
+    }
+
+    /**
+     * Gets a queued snapshot that has not reached storage yet, or null
+     */
+    public PlayerProgressSnapshot getPending(UUID uuid) {
+        PlayerProgressSnapshot snapshot = pending.get(uuid);
+        if (snapshot == null) {
+            snapshot = inFlight.get(uuid);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Gets the number of players waiting to be written
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Runs a task on the writer once everything queued so far has been written
+     * The task is skipped if any write failed, since those are still pending
+     */
+    public void afterWrites(Runnable task) {
+        try {
+            writer.execute(() -> {
+                drain();
+                if (pending.isEmpty()) {
+                    task.run();
+                }
+            });
+        } catch (RuntimeException e) {
+            // Writer already shut down, the final flush takes care of it
+        }
+    }
+
+    /**
+     * Blocks until everything queued so far has been written (not on the main thread)
+     * @return true if the writer caught up within the timeout
+     */
+    public boolean awaitWrites(long timeout, TimeUnit unit) {
+        try {
+            writer.submit(this::drain).get(timeout, unit);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes everything queued so far and stops the writer thread
+     * @return true if all writes finished within the timeout
+     */
+    public boolean flushAndAwait(long timeout, TimeUnit unit) {
+        writer.execute(this::drain);
+        writer.shutdown();
+        try {
+            return writer.awaitTermination(timeout, unit) && pending.isEmpty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::drain);
+            } catch (RuntimeException e) {
+                // Writer already shut down, the final flush picks up what is left
+                drainScheduled.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        // Cleared first so submissions made while draining schedule another pass
+        drainScheduled.set(false);
+
+        int written = 0;
+        Map<UUID, PlayerProgressSnapshot> batch = new LinkedHashMap<>();
+        for (UUID uuid : new ArrayList<>(pending.keySet())) {
+            PlayerProgressSnapshot snapshot = pending.get(uuid);
+            if (snapshot == null) {
+                continue;
+            }
+            batch.put(uuid, snapshot);
+            if (batch.size() >= BATCH_SIZE) {
+                written += writeBatch(batch);
+                batch = new LinkedHashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            written += writeBatch(batch);
+        }
+
+        if (written > 0) {
+            logger.fine("Saved testament progress for " + written + " player(s)");
+        }
+    }
+
+    /**
+     * Takes a batch out of the queue and writes it
+     * @return the number of players written
+     */
+    private int writeBatch(Map<UUID, PlayerProgressSnapshot> batch) {
+        // Publish before removing so getPending() never misses a snapshot
+        inFlight = batch;
+        for (Map.Entry<UUID, PlayerProgressSnapshot> entry : batch.entrySet()) {
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+
+        try {
+            List<PlayerProgressSnapshot> snapshots = new ArrayList<>(batch.values());
+            storage.writeAll(snapshots);
+            return snapshots.size();
+        } catch (IOException | RuntimeException e) {
+            // Keep them queued unless something newer replaced them; the next save retries
+            for (Map.Entry<UUID, PlayerProgressSnapshot> entry : batch.entrySet()) {
+                pending.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            logger.warning("Failed to save testament progress for " + batch.size() + " player(s): " + e.getMessage());
+            return 0;
+        } finally {
+            inFlight = Collections.emptyMap();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.fallengod.testament.data;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Backend that persists per-player progress records
+ * Implementations must not depend on the server API so they can be used offline
+ */
+public interface PlayerDataStorage {
+
+    /**
+     * Receives stored players one at a time
+     */
+    interface PlayerVisitor {
+        void visit(UUID uuid) throws IOException;
+    }
+
+    /**
+     * Loads a player's stored progress, or null if nothing is stored
+     */
+    PlayerProgressSnapshot load(UUID uuid) throws IOException;
+
+    /**
+     * Writes a player's progress, replacing any previous record
+     */
+    void write(PlayerProgressSnapshot snapshot) throws IOException;
+
+    /**
+     * Writes several players at once; backends that can batch should override this
+     */
+    default void writeAll(List<PlayerProgressSnapshot> snapshots) throws IOException {
+        for (PlayerProgressSnapshot snapshot : snapshots) {
+            write(snapshot);
+        }
+    }
+
+    /**
+     * Lists every player with a stored record
+     */
+    Set<UUID> listPlayers() throws IOException;
+
+    /**
+     * Checks if any player has a stored record, without listing them
+     * Backends that can stop at the first record should override this
+     */
+    default boolean hasAnyPlayer() throws IOException {
+        return !listPlayers().isEmpty();
+    }
+
+    /**
+     * Visits every player with a stored record without collecting them first
+     * Backends that can stream their records should override this
+     */
+    default void forEachPlayer(PlayerVisitor visitor) throws IOException {
+        for (UUID uuid : listPlayers()) {
+            visitor.visit(uuid);
+        }
+    }
+
+    /**
+     * Short name used in config and log messages
+     */
+    String getName();
+
+    /**
+     * Releases any resources held by the backend
+     */
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,39 @@
+package com.fallengod.testament.data;
+
+import java.io.File;
+import java.util.logging.Logger;
+
+/**
+ * Creates storage backends by their storage.format name
+ * Kept free of the server API so the offline ProgressTool can use it
+ */
+public final class PlayerDataStorages {
+
+    private PlayerDataStorages() {
+    }
+
+    /**
+     * Creates a backend rooted at a storage folder (players/ or progress.db inside it)
+     * @return the backend, or null if the format is unknown
+     */
+    public static PlayerDataStorage create(String format, File storageFolder, Logger logger) {
+        switch (format.toLowerCase()) {
+            case "yaml":
+                return new YamlPlayerDataStorage(getPlayersFolder(storageFolder), logger);
+            case "binary":
+                return new BinaryPlayerDataStorage(getPlayersFolder(storageFolder), logger);
+            case "sql":
+                return new SqlPlayerDataStorage(getDatabaseFile(storageFolder), logger);
+            default:
+                return null;
+        }
+    }
+
+    public static File getPlayersFolder(File storageFolder) {
+        return new File(storageFolder, "players");
+    }
+
+    public static File getDatabaseFile(File storageFolder) {
+        return new File(storageFolder, "progress.db");
+    }
+}
@@ -0,0 +1,140 @@
+package com.fallengod.testament.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Versioned binary encoding of a single player's progress
+ *
+ * Layout (version 4):
+ *   byte    format version
+ *   long    uuid most significant bits
+ *   long    uuid least significant bits
+ *   long    record version (write counter, absent in format 1)
+ *   byte    completion bitmask (bit n = god index n)
+ *   byte    number of god entries that follow
+ *   entries byte god index, byte fragment bitmask (bit 0 = fragment 1)
+ *   byte    number of counter entries that follow (absent before format 3)
+ *   entries byte counter index (see ProgressCounters), int value
+ *   byte    number of registered counter entries that follow (absent before format 4)
+ *   entries UTF counter name, int value
+ *
+ * Built-in counters are written by index; registered ones (kills of mobs added
+ * in config) by name, since their index depends on registration order.
+ *
+ * Gods with no fragments and zero counters are omitted, so a typical record is 30-80 bytes
+ */
+public final class PlayerProgressCodec {
+
+    public static final int CURRENT_VERSION = 4;
+
+    private PlayerProgressCodec() {
+    }
+
+    public static byte[] encode(PlayerProgressSnapshot snapshot) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        write(new DataOutputStream(bytes), snapshot);
+        return bytes.toByteArray();
+    }
+
+    public static PlayerProgressSnapshot decode(byte[] data) throws IOException {
+        return read(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+
+    public static void write(DataOutput out, PlayerProgressSnapshot snapshot) throws IOException {
+        out.writeByte(CURRENT_VERSION);
+        out.writeLong(snapshot.getUuid().getMostSignificantBits());
+        out.writeLong(snapshot.getUuid().getLeastSignificantBits());
+        out.writeLong(snapshot.getVersion());
+        out.writeByte(snapshot.getCompletedMask());
+
+        int entries = 0;
+        for (int godIndex = 0; godIndex < GodTypes.COUNT; godIndex++) {
+            if (snapshot.getFragmentMask(godIndex) != 0) entries++;
+        }
+        out.writeByte(entries);
+        for (int godIndex = 0; godIndex < GodTypes.COUNT; godIndex++) {
+            int mask = snapshot.getFragmentMask(godIndex);
+            if (mask != 0) {
+                out.writeByte(godIndex);
+                out.writeByte(mask);
+            }
+        }
+
+        int counters = 0;
+        for (int counterIndex = 0; counterIndex < ProgressCounters.BUILT_IN_COUNT; counterIndex++) {
+            if (snapshot.getCounter(counterIndex) != 0) counters++;
+        }
+        out.writeByte(counters);
+        for (int counterIndex = 0; counterIndex < ProgressCounters.BUILT_IN_COUNT; counterIndex++) {
+            int value = snapshot.getCounter(counterIndex);
+            if (value != 0) {
+                out.writeByte(counterIndex);
+                out.writeInt(value);
+            }
+        }
+
+        int registered = 0;
+        for (int counterIndex = ProgressCounters.BUILT_IN_COUNT; counterIndex < ProgressCounters.COUNT; counterIndex++) {
+            if (snapshot.getCounter(counterIndex) != 0 && ProgressCounters.nameOf(counterIndex) != null) registered++;
+        }
+        out.writeByte(registered);
+        for (int counterIndex = ProgressCounters.BUILT_IN_COUNT; counterIndex < ProgressCounters.COUNT; counterIndex++) {
+            int value = snapshot.getCounter(counterIndex);
+            String name = ProgressCounters.nameOf(counterIndex);
+            if (value != 0 && name != null) {
+                out.writeUTF(name);
+                out.writeInt(value);
+            }
+        }
+    }
+
+    public static PlayerProgressSnapshot read(DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > CURRENT_VERSION) {
+            throw new IOException("Unsupported progress format version " + version);
+        }
+
+        UUID uuid = new UUID(in.readLong(), in.readLong());
+        long recordVersion = version >= 2 ? in.readLong() : 0L;
+        int completedMask = in.readUnsignedByte();
+
+        byte[] masks = new byte[GodTypes.COUNT];
+        int entries = in.readUnsignedByte();
+        for (int i = 0; i < entries; i++) {
+            int godIndex = in.readUnsignedByte();
+            int mask = in.readUnsignedByte();
+            // Tolerate gods this build does not know about
+            if (godIndex < GodTypes.COUNT) {
+                masks[godIndex] = (byte) (mask & 0x7F);
+            }
+        }
+
+        int[] counters = new int[ProgressCounters.COUNT];
+        int counterEntries = version >= 3 ? in.readUnsignedByte() : 0;
+        for (int i = 0; i < counterEntries; i++) {
+            int counterIndex = in.readUnsignedByte();
+            int value = in.readInt();
+            // Same for counters added by a newer build
+            if (ProgressCounters.isBuiltIn(counterIndex)) {
+                counters[counterIndex] = value;
+            }
+        }
+        int registeredEntries = version >= 4 ? in.readUnsignedByte() : 0;
+        for (int i = 0; i < registeredEntries; i++) {
+            int counterIndex = ProgressCounters.resolve(in.readUTF());
+            int value = in.readInt();
+            if (counterIndex >= 0) {
+                counters[counterIndex] = value;
+            }
+        }
+
+        return new PlayerProgressSnapshot(uuid, masks, completedMask & ((1 << GodTypes.COUNT) - 1), counters, recordVersion);
+    }
+}
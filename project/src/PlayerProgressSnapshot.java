@@ -0,0 +1,124 @@
+package com.fallengod.testament.data;
+
+import java.util.UUID;
+
+/**
+ * Immutable point-in-time copy of one player's testament progress
+ * Fragments are held as one 7-bit mask per god and completions as a 6-bit mask
+ * Activity counters are held in ProgressCounters order
+ * The version counts writes of the record and is used by shared storage
+ */
+public final class PlayerProgressSnapshot {
+
+    private final UUID uuid;
+    private final byte[] fragmentMasks;
+    private final int completedMask;
+    private final int[] counters;
+    private final long version;
+
+    public PlayerProgressSnapshot(UUID uuid, byte[] fragmentMasks, int completedMask) {
+        this(uuid, fragmentMasks, completedMask, 0L);
+    }
+
+    public PlayerProgressSnapshot(UUID uuid, byte[] fragmentMasks, int completedMask, long version) {
+        this(uuid, fragmentMasks, completedMask, new int[ProgressCounters.COUNT], version);
+    }
+
+    public PlayerProgressSnapshot(UUID uuid, byte[] fragmentMasks, int completedMask, int[] counters, long version) {
+        if (fragmentMasks.length != GodTypes.COUNT) {
+            throw new IllegalArgumentException("Expected " + GodTypes.COUNT + " fragment masks, got " + fragmentMasks.length);
+        }
+        if (counters.length != ProgressCounters.COUNT) {
+            throw new IllegalArgumentException("Expected " + ProgressCounters.COUNT + " counters, got " + counters.length);
+        }
+        this.uuid = uuid;
+        this.fragmentMasks = fragmentMasks.clone();
+        this.completedMask = completedMask;
+        this.counters = counters.clone();
+        this.version = version;
+    }
+
+    /**
+     * Captures the current progress of a player
+     */
+    public static PlayerProgressSnapshot of(UUID uuid, PlayerTestamentData data) {
+        // One read of the packed state keeps fragments and completions consistent
+        long packed = data.getPackedState();
+        byte[] masks = new byte[GodTypes.COUNT];
+        for (int godIndex = 0; godIndex < GodTypes.COUNT; godIndex++) {
+            masks[godIndex] = (byte) PlayerTestamentData.fragmentMaskOf(packed, godIndex);
+        }
+        int completed = PlayerTestamentData.completedMaskOf(packed);
+
+        int[] counters = new int[ProgressCounters.COUNT];
+        for (int counterIndex = 0; counterIndex < ProgressCounters.COUNT; counterIndex++) {
+            counters[counterIndex] = data.getCounter(counterIndex);
+        }
+
+        return new PlayerProgressSnapshot(uuid, masks, completed, counters, data.getVersion());
+    }
+
+    /**
+     * Builds a fresh, clean PlayerTestamentData holding this progress
+     */
+    public PlayerTestamentData toData() {
+        PlayerTestamentData data = new PlayerTestamentData();
+        data.restore(PlayerTestamentData.pack(fragmentMasks, completedMask));
+        for (int counterIndex = 0; counterIndex < ProgressCounters.COUNT; counterIndex++) {
+            data.raiseCounter(counterIndex, counters[counterIndex]);
+        }
+        data.setVersion(version);
+        return data;
+    }
+
+    /**
+     * Copies this snapshot with a different version
+     */
+    public PlayerProgressSnapshot withVersion(long newVersion) {
+        return new PlayerProgressSnapshot(uuid, fragmentMasks, completedMask, counters, newVersion);
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    /**
+     * Gets the fragment mask for a god index (bit 0 = fragment 1)
+     */
+    public int getFragmentMask(int godIndex) {
+        return fragmentMasks[godIndex] & 0x7F;
+    }
+
+    public int getCompletedMask() {
+        return completedMask;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets an activity counter by ProgressCounters index
+     */
+    public int getCounter(int counterIndex) {
+        return counters[counterIndex];
+    }
+
+    public boolean isTestamentCompleted(int godIndex) {
+        return (completedMask & (1 << godIndex)) != 0;
+    }
+
+    /**
+     * Checks if this snapshot holds no progress at all
+     */
+    public boolean isEmpty() {
+        if (completedMask != 0) return false;
+        for (byte mask : fragmentMasks) {
+            if (mask != 0) return false;
+        }
+        for (int counter : counters) {
+            if (counter != 0) return false;
+        }
+        return true;
+    }
+}
@@ -1,34 +1,100 @@
 package com.fallengod.testament.data;
 
+import java.util.AbstractSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Stores testament progress for a single player
  * Thread-safe implementation for concurrent access
+ *
+ * All progress is packed into one atomically updated long: 7 fragment bits per
+ * god in GodTypes order (bits 0-41), then one completion bit per god (bits 42-47).
+ * Reads never allocate; the collection getters are views or copies of that value.
+ * Activity counters (see ProgressCounters) are kept alongside and saved with it.
  */
 public class PlayerTestamentData {
-    // godType -> set of fragment numbers found (e.g. 1-7)
-    private final Map<String, Set<Integer>> fragmentsFound = new ConcurrentHashMap<>();
-    // godTypes completed
-    private final Set<String> completedTestaments = ConcurrentHashMap.newKeySet();
+    private static final int FRAGMENTS_PER_GOD = 7;
+    private static final int FRAGMENT_MASK = (1 << FRAGMENTS_PER_GOD) - 1;
+    private static final int COMPLETED_SHIFT = FRAGMENTS_PER_GOD * GodTypes.COUNT;
+
+    // Packed fragments and completions, updated with compare-and-set
+    private final AtomicLong state = new AtomicLong();
+    // Activity counters in ProgressCounters order
+    private final AtomicIntegerArray counters = new AtomicIntegerArray(ProgressCounters.COUNT);
+    // Set whenever progress changes, cleared once the store has written it
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    // Notified of every change, used by the store to journal progress
+    private volatile ChangeListener changeListener;
+    // Version of the stored record this data was loaded from or last written as
+    private volatile long version;
+
+    /**
+     * Receives progress changes as they happen
+     */
+    public interface ChangeListener {
+        void onFragmentAdded(String godType, int fragmentNumber);
+
+        void onFragmentRemoved(String godType, int fragmentNumber);
+
+        void onFragmentsCleared(String godType);
+
+        void onTestamentCompleted(String godType);
+    }
+
+    public void setChangeListener(ChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 
     /**
-     * Returns the set of fragment numbers found for a god (never null)
+     * Returns a live, read-only view of the fragment numbers found for a god (never null)
      */
     public Set<Integer> getFragmentsFound(String godType) {
-        return fragmentsFound.computeIfAbsent(godType, k -> ConcurrentHashMap.newKeySet());
+        return new FragmentView(GodTypes.indexOf(godType));
     }
 
     /**
      * Sets the set of fragment numbers found for a god
      */
     public void setFragmentsFound(String godType, Set<Integer> fragmentNumbers) {
-        fragmentsFound.put(godType, ConcurrentHashMap.newKeySet());
-        fragmentsFound.get(godType).addAll(fragmentNumbers);
+        int godIndex = GodTypes.indexOf(godType);
+        if (godIndex < 0) {
+            return;
+        }
+
+        int mask = 0;
+        for (int fragmentNumber : fragmentNumbers) {
+            if (fragmentNumber >= 1 && fragmentNumber <= FRAGMENTS_PER_GOD) {
+                mask |= 1 << (fragmentNumber - 1);
+            }
+        }
+        long godBits = (long) FRAGMENT_MASK << fragmentShift(godIndex);
+        long newBits = (long) mask << fragmentShift(godIndex);
+        state.updateAndGet(current -> (current & ~godBits) | newBits);
+        markDirty();
+
+        ChangeListener listener = changeListener;
+        if (listener != null) {
+            listener.onFragmentsCleared(godType);
+            for (int fragmentNumber : fragmentNumbers) {
+                listener.onFragmentAdded(godType, fragmentNumber);
+            }
+        }
     }
 
     /**
@@ -36,10 +102,17 @@ public class PlayerTestamentData {
      * @return true if this was a new fragment, false if already had it
      */
     public boolean addFragment(String godType, int fragmentNumber) {
-        if (fragmentNumber < 1 || fragmentNumber > 7) {
+        long bit = fragmentBit(godType, fragmentNumber);
+        if (bit == 0 || !setBits(bit)) {
             return false;
         }
-        return getFragmentsFound(godType).add(fragmentNumber);
+
+        markDirty();
+        ChangeListener listener = changeListener;
+        if (listener != null) {
+            listener.onFragmentAdded(godType, fragmentNumber);
+        }
+        return true;
     }
 
     /**
@@ -47,40 +120,77 @@ public class PlayerTestamentData {
      * @return true if the fragment was removed, false if it wasn't present
      */
     public boolean removeFragment(String godType, int fragmentNumber) {
-        return getFragmentsFound(godType).remove(fragmentNumber);
+        long bit = fragmentBit(godType, fragmentNumber);
+        if (bit == 0 || !clearBits(bit)) {
+            return false;
+        }
+
+        markDirty();
+        ChangeListener listener = changeListener;
+        if (listener != null) {
+            listener.onFragmentRemoved(godType, fragmentNumber);
+        }
+        return true;
     }
     
     /**
      * Clears all fragments for a god type
      */
     public void clearFragments(String godType) {
-        fragmentsFound.remove(godType);
+        int godIndex = GodTypes.indexOf(godType);
+        if (godIndex < 0 || !clearBits((long) FRAGMENT_MASK << fragmentShift(godIndex))) {
+            return;
+        }
+
+        markDirty();
+        ChangeListener listener = changeListener;
+        if (listener != null) {
+            listener.onFragmentsCleared(godType);
+        }
     }
 
     /**
      * Returns the number of unique fragments found for a god
      */
     public int getFragmentCount(String godType) {
-        return getFragmentsFound(godType).size();
+        return Integer.bitCount(getFragmentMask(GodTypes.indexOf(godType)));
     }
 
     /**
      * Checks if a player has a specific fragment
      */
     public boolean hasFragment(String godType, int fragmentNumber) {
-        return getFragmentsFound(godType).contains(fragmentNumber);
+        long bit = fragmentBit(godType, fragmentNumber);
+        return bit != 0 && (state.get() & bit) != 0;
     }
 
     public boolean isTestamentCompleted(String godType) {
-        return completedTestaments.contains(godType);
+        int godIndex = GodTypes.indexOf(godType);
+        return godIndex >= 0 && (state.get() & completedBit(godIndex)) != 0;
     }
 
     public void completeTestament(String godType) {
-        completedTestaments.add(godType);
+        int godIndex = GodTypes.indexOf(godType);
+        if (godIndex < 0 || !setBits(completedBit(godIndex))) {
+            return;
+        }
+
+        markDirty();
+        ChangeListener listener = changeListener;
+        if (listener != null) {
+            listener.onTestamentCompleted(godType);
+        }
     }
 
     public Set<String> getCompletedTestaments() {
-        return new HashSet<>(completedTestaments);
+        Set<String> completed = new HashSet<>();
+        int mask = getCompletedMask();
+        for (int godIndex = 0; godIndex < GodTypes.COUNT; godIndex++) {
+            if ((mask & (1 << godIndex)) != 0) {
+                completed.add(GodTypes.nameOf(godIndex));
+            }
+        }
+        return completed;
     }
 
     /**
@@ -88,34 +198,260 @@ public class PlayerTestamentData {
      */
     public Map<String, Set<Integer>> getFragmentsMap() {
         Map<String, Set<Integer>> copy = new HashMap<>();
-        for (Map.Entry<String, Set<Integer>> entry : fragmentsFound.entrySet()) {
-            copy.put(entry.getKey(), new HashSet<>(entry.getValue()));
+        long packed = state.get();
+        for (int godIndex = 0; godIndex < GodTypes.COUNT; godIndex++) {
+            int mask = fragmentMaskOf(packed, godIndex);
+            if (mask != 0) {
+                Set<Integer> numbers = new HashSet<>();
+                for (int bit = 0; bit < FRAGMENTS_PER_GOD; bit++) {
+                    if ((mask & (1 << bit)) != 0) {
+                        numbers.add(bit + 1);
+                    }
+                }
+                copy.put(GodTypes.nameOf(godIndex), numbers);
+            }
         }
         return copy;
     }
+
+    /**
+     * Gets the fragment bits for a god index (bit 0 = fragment 1), 0 for unknown gods
+     */
+    public int getFragmentMask(int godIndex) {
+        if (godIndex < 0 || godIndex >= GodTypes.COUNT) {
+            return 0;
+        }
+        return fragmentMaskOf(state.get(), godIndex);
+    }
+
+    /**
+     * Gets the completion bits (bit n = god index n)
+     */
+    public int getCompletedMask() {
+        return completedMaskOf(state.get());
+    }
+
+    /**
+     * Gets all progress as one packed value (see the class comment for the layout)
+     */
+    public long getPackedState() {
+        return state.get();
+    }
+
+    /**
+     * Replaces all progress without marking it dirty or notifying the listener
+     * Used when loading from storage
+     */
+    void restore(long packedState) {
+        state.set(packedState);
+    }
+
+    /**
+     * Adds one to an activity counter
+     * Counters are saved with the next write of this player but are not journaled
+     * @return the new value, or 0 for an unknown counter
+     */
+    public int incrementCounter(int counterIndex) {
+        if (counterIndex < 0 || counterIndex >= ProgressCounters.COUNT) {
+            return 0;
+        }
+        int value = counters.incrementAndGet(counterIndex);
+        markDirty();
+        return value;
+    }
+
+    /**
+     * Sets an activity counter back to 0
+     * Shared storage merges counters by taking the larger value, so a reset can
+     * be undone by a concurrent write from another server
+     */
+    public void resetCounter(int counterIndex) {
+        if (counterIndex < 0 || counterIndex >= ProgressCounters.COUNT) {
+            return;
+        }
+        if (counters.getAndSet(counterIndex, 0) != 0) {
+            markDirty();
+        }
+    }
+
+    /**
+     * Gets an activity counter, 0 for unknown counters
+     */
+    public int getCounter(int counterIndex) {
+        if (counterIndex < 0 || counterIndex >= ProgressCounters.COUNT) {
+            return 0;
+        }
+        return counters.get(counterIndex);
+    }
+
+    /**
+     * Raises a counter to at least the given value without marking it dirty
+     * Used when loading and when absorbing a newer stored record
+     */
+    void raiseCounter(int counterIndex, int value) {
+        if (counterIndex < 0 || counterIndex >= ProgressCounters.COUNT) {
+            return;
+        }
+        counters.accumulateAndGet(counterIndex, value, Math::max);
+    }
+
+    /**
+     * Packs per-god fragment masks and a completion mask into the state layout
+     */
+    public static long pack(byte[] fragmentMasks, int completedMask) {
+        long packed = 0L;
+        for (int godIndex = 0; godIndex < GodTypes.COUNT && godIndex < fragmentMasks.length; godIndex++) {
+            packed |= (long) (fragmentMasks[godIndex] & FRAGMENT_MASK) << fragmentShift(godIndex);
+        }
+        packed |= (long) (completedMask & ((1 << GodTypes.COUNT) - 1)) << COMPLETED_SHIFT;
+        return packed;
+    }
+
+    /**
+     * Extracts one god's fragment bits from a packed state
+     */
+    public static int fragmentMaskOf(long packedState, int godIndex) {
+        return (int) (packedState >>> fragmentShift(godIndex)) & FRAGMENT_MASK;
+    }
+
+    /**
+     * Extracts the completion bits from a packed state
+     */
+    public static int completedMaskOf(long packedState) {
+        return (int) (packedState >>> COMPLETED_SHIFT) & ((1 << GodTypes.COUNT) - 1);
+    }
+
+    private static int fragmentShift(int godIndex) {
+        return godIndex * FRAGMENTS_PER_GOD;
+    }
+
+    private static long completedBit(int godIndex) {
+        return 1L << (COMPLETED_SHIFT + godIndex);
+    }
+
+    /**
+     * Gets the state bit for a fragment, or 0 if the god or number is invalid
+     */
+    private static long fragmentBit(String godType, int fragmentNumber) {
+        int godIndex = GodTypes.indexOf(godType);
+        if (godIndex < 0 || fragmentNumber < 1 || fragmentNumber > FRAGMENTS_PER_GOD) {
+            return 0L;
+        }
+        return 1L << (fragmentShift(godIndex) + fragmentNumber - 1);
+    }
+
+    /**
+     * Sets bits with a CAS loop
+     * @return true if any of them were not already set
+     */
+    private boolean setBits(long bits) {
+        while (true) {
+            long current = state.get();
+            if ((current & bits) == bits) {
+                return false;
+            }
+            if (state.compareAndSet(current, current | bits)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Clears bits with a CAS loop
+     * @return true if any of them were set
+     */
+    private boolean clearBits(long bits) {
+        while (true) {
+            long current = state.get();
+            if ((current & bits) == 0) {
+                return false;
+            }
+            if (state.compareAndSet(current, current & ~bits)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Read-only set of one god's fragment numbers, backed by the packed state
+     */
+    private final class FragmentView extends AbstractSet<Integer> {
+        private final int godIndex;
+
+        FragmentView(int godIndex) {
+            this.godIndex = godIndex;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Integer)) {
+                return false;
+            }
+            int fragmentNumber = (Integer) o;
+            return fragmentNumber >= 1 && fragmentNumber <= FRAGMENTS_PER_GOD
+                && (getFragmentMask(godIndex) & (1 << (fragmentNumber - 1))) != 0;
+        }
+
+        @Override
+        public int size() {
+            return Integer.bitCount(getFragmentMask(godIndex));
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            int mask = getFragmentMask(godIndex);
+            return new Iterator<Integer>() {
+                private int remaining = mask;
+
+                @Override
+                public boolean hasNext() {
+                    return remaining != 0;
+                }
+
+                @Override
+                public Integer next() {
+                    if (remaining == 0) {
+                        throw new NoSuchElementException();
+                    }
+                    int bit = Integer.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+                    return bit + 1;
+                }
+            };
+        }
+    }
     
     /**
-     * Gets progress summary for a god type
+     * Flags this player's progress as changed since the last save
+     */
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    /**
+     * Checks if this player's progress has unsaved changes
+     */
+    public boolean isDirty() {
+        return dirty.get();
+    }
+
+    /**
+     * Clears the dirty flag ahead of a write
+     * @return true if there were unsaved changes
+     */
+    public boolean clearDirty() {
+        return dirty.getAndSet(false);
+    }
+    
+    /**
+     * Gets progress summary for a god type (precomputed, see ProgressSummaries)
      */
     public String getProgressSummary(String godType) {
-        Set<Integer> fragments = getFragmentsFound(godType);
-        if (isTestamentCompleted(godType)) {
-            return "§a§lCOMPLETED";
-        }
-        
-        StringBuilder summary = new StringBuilder();
-        summary.append("§7").append(fragments.size()).append("/7 §8[");
-        
-        for (int i = 1; i <= 7; i++) {
-            if (fragments.contains(i)) {
-                summary.append("§a").append(i);
-            } else {
-                summary.append("§c").append(i);
-            }
-            if (i < 7) summary.append("§8,");
+        int godIndex = GodTypes.indexOf(godType);
+        if (godIndex < 0) {
+            return ProgressSummaries.of(0, false);
         }
-        
-        summary.append("§8]");
-        return summary.toString();
+        long packed = state.get();
+        return ProgressSummaries.of(fragmentMaskOf(packed, godIndex), (packed & completedBit(godIndex)) != 0);
     }
-}
\ No newline at end of file
+}
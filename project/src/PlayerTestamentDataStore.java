@@ -1,99 +1,494 @@
 package com.fallengod.testament.data;
 
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 import org.bukkit.plugin.java.JavaPlugin;
-import org.yaml.snakeyaml.DumperOptions;
-import org.yaml.snakeyaml.Yaml;
 
 /**
- * Handles saving/loading all player testament progress to a YAML file
+ * Handles saving/loading player testament progress
+ * Each player is stored as its own record in the configured storage backend
+ * and only players with unsaved changes are written, so a save costs I/O per
+ * changed player.
+ *
+ * Progress is loaded on demand: online players stay resident, offline players
+ * live in a bounded LRU cache and are written back when evicted.
+ *
+ * Every change is also appended to a write-ahead journal, replayed on startup,
+ * so a crash between saves loses at most the last journal batch.
+ *
+ * In shared mode several servers use the same backend; records are versioned
+ * and merged on write (see SharedPlayerDataStorage), and cached progress is
+ * refreshed from storage when a player logs in.
  */
 public class PlayerTestamentDataStore {
-    private final Map<UUID, PlayerTestamentData> playerData = new HashMap<>();
-    private final File dataFile;
-    private final Yaml yaml;
+    // Players currently online, never evicted
+    private final Map<UUID, PlayerTestamentData> onlinePlayers = new ConcurrentHashMap<>();
+    // Recently seen offline players, least recently used first (guarded by itself)
+    private final LinkedHashMap<UUID, PlayerTestamentData> offlineCache;
+    private final File dataFolder;
+    // Where player records live, the data folder unless storage.shared.path is set
+    private final File storageFolder;
+    private final Logger logger;
+    private final PlayerDataStorage storage;
+    private final PlayerDataSaveQueue saveQueue;
+    // Null when storage.journal.enabled is false
+    private final ProgressJournal journal;
+    private final long journalSyncInterval;
 
     public PlayerTestamentDataStore(JavaPlugin plugin) {
-        this.dataFile = new File(plugin.getDataFolder(), "progress.yml");
-        DumperOptions options = new DumperOptions();
-        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
-        this.yaml = new Yaml(options);
+        this.dataFolder = plugin.getDataFolder();
+        this.logger = plugin.getLogger();
+
+        boolean shared = plugin.getConfig().getBoolean("storage.shared.enabled", false);
+        String sharedPath = plugin.getConfig().getString("storage.shared.path", "");
+        this.storageFolder = shared && !sharedPath.isEmpty() ? new File(sharedPath) : dataFolder;
+        PlayerDataStorage backend = createStorage(plugin.getConfig().getString("storage.format", "binary"));
+        if (shared) {
+            SharedPlayerDataStorage sharedStorage = new SharedPlayerDataStorage(backend, new File(storageFolder, "locks"), logger);
+            sharedStorage.setWriteListener(this::onWritten);
+            this.storage = sharedStorage;
+        } else {
+            this.storage = backend;
+        }
+        this.saveQueue = new PlayerDataSaveQueue(storage, logger);
+        this.journal = plugin.getConfig().getBoolean("storage.journal.enabled", true)
+            ? new ProgressJournal(new File(dataFolder, "journal"), logger)
+            : null;
+        this.journalSyncInterval = plugin.getConfig().getLong("storage.journal.sync_interval_ms", 250L);
+
+        int cacheSize = Math.max(0, plugin.getConfig().getInt("storage.offline_cache_size", 1000));
+        this.offlineCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, PlayerTestamentData> eldest) {
+                if (size() <= cacheSize) {
+                    return false;
+                }
+                // Write back on eviction, queued so no I/O happens under the lock
+                queueIfDirty(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
     }
 
+    /**
+     * Gets a player's progress, loading it from storage if it is not cached
+     * Offline lookups that miss the cache read a single record synchronously
+     */
     public PlayerTestamentData get(UUID uuid) {
-        return playerData.computeIfAbsent(uuid, k -> new PlayerTestamentData());
+        PlayerTestamentData data = onlinePlayers.get(uuid);
+        if (data != null) {
+            return data;
+        }
+
+        synchronized (offlineCache) {
+            data = offlineCache.get(uuid);
+        }
+        if (data != null) {
+            return data;
+        }
+
+        return cacheLoaded(uuid, loadFromStorage(uuid));
     }
 
     public void set(UUID uuid, PlayerTestamentData data) {
-        playerData.put(uuid, data);
+        data.markDirty();
+        attachJournal(uuid, data);
+        if (onlinePlayers.containsKey(uuid)) {
+            onlinePlayers.put(uuid, data);
+        } else {
+            synchronized (offlineCache) {
+                offlineCache.put(uuid, data);
+            }
+        }
+    }
+
+    /**
+     * Loads a player's progress ahead of login (safe to call off the main thread)
+     */
+    public void preload(UUID uuid) {
+        if (isCached(uuid)) {
+            // Another server may have changed them since they were cached here
+            if (storage instanceof SharedPlayerDataStorage) {
+                refresh(uuid);
+            }
+            return;
+        }
+        cacheLoaded(uuid, loadFromStorage(uuid));
     }
 
-    public void save() throws IOException {
-        // Ensure data folder exists
-        if (!dataFile.getParentFile().exists()) {
-            dataFile.getParentFile().mkdirs();
+    /**
+     * Pins a player's progress in memory while they are online
+     */
+    public void markOnline(UUID uuid) {
+        PlayerTestamentData data;
+        synchronized (offlineCache) {
+            data = offlineCache.remove(uuid);
+        }
+        if (data == null) {
+            data = onlinePlayers.containsKey(uuid) ? null : loadFromStorage(uuid);
         }
-        
-        Map<String, Object> saveMap = new HashMap<>();
-        for (Map.Entry<UUID, PlayerTestamentData> entry : playerData.entrySet()) {
-            Map<String, Object> playerMap = new HashMap<>();
-            // Save fragments as godType -> list of fragment numbers
-            Map<String, Object> fragmentsOut = new HashMap<>();
-            for (Map.Entry<String, Set<Integer>> fragEntry : entry.getValue().getFragmentsMap().entrySet()) {
-                fragmentsOut.put(fragEntry.getKey(), new java.util.ArrayList<>(fragEntry.getValue()));
+        if (data != null) {
+            onlinePlayers.putIfAbsent(uuid, data);
+        }
+    }
+
+    /**
+     * Moves a player who went offline into the LRU cache
+     * Call after saving them so eviction has nothing left to write
+     */
+    public void markOffline(UUID uuid) {
+        PlayerTestamentData data = onlinePlayers.remove(uuid);
+        if (data != null) {
+            synchronized (offlineCache) {
+                offlineCache.put(uuid, data);
             }
-            playerMap.put("fragments", fragmentsOut);
-            playerMap.put("completed", new HashSet<>(entry.getValue().getCompletedTestaments()));
-            saveMap.put(entry.getKey().toString(), playerMap);
         }
-        try (FileWriter writer = new FileWriter(dataFile)) {
-            yaml.dump(saveMap, writer);
+    }
+
+    /**
+     * Queues every cached player with unsaved changes for saving
+     * Call from the main thread; only the snapshots are taken here, the
+     * writes happen on the save queue's writer thread
+     */
+    public void save() {
+        List<Map.Entry<UUID, PlayerTestamentData>> entries = new ArrayList<>(onlinePlayers.entrySet());
+        synchronized (offlineCache) {
+            entries.addAll(offlineCache.entrySet());
+        }
+
+        for (Map.Entry<UUID, PlayerTestamentData> entry : entries) {
+            queueIfDirty(entry.getKey(), entry.getValue());
         }
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Queues a single player for saving if they have unsaved changes
+     */
+    public void save(UUID uuid) {
+        PlayerTestamentData data = onlinePlayers.get(uuid);
+        if (data == null) {
+            synchronized (offlineCache) {
+                data = offlineCache.get(uuid);
+            }
+        }
+        if (data != null) {
+            queueIfDirty(uuid, data);
+        }
+    }
+
+    /**
+     * Saves everything and compacts the journal once those writes land
+     * Call from the main thread (used by the autosave)
+     */
+    public void checkpoint() {
+        if (journal == null) {
+            save();
+            return;
+        }
+
+        // Every change in the sealed segments is dirty or queued after this;
+        // rotating only marks the boundary, the journal thread does the file work
+        long sealed = journal.rotate();
+        save();
+        saveQueue.afterWrites(() -> journal.deleteSegmentsUpTo(sealed));
+    }
+
+    /**
+     * Prepares the storage backend, migrating older formats if needed, and
+     * recovers changes left in the journal by a crash
+     * Player progress itself is loaded lazily
+     */
     public void load() throws IOException {
-        playerData.clear();
-        if (!dataFile.exists()) return;
-        try (FileReader reader = new FileReader(dataFile)) {
-            Object obj = yaml.load(reader);
-            if (!(obj instanceof Map)) return;
-            Map<?, ?> saveMap = (Map<?, ?>) obj;
-            for (Map.Entry<?, ?> entry : saveMap.entrySet()) {
-                UUID uuid = UUID.fromString(entry.getKey().toString());
-                Map<?, ?> playerMap = (Map<?, ?>) entry.getValue();
-                PlayerTestamentData data = new PlayerTestamentData();
-                if (playerMap.containsKey("fragments")) {
-                    Map<?, ?> fragments = (Map<?, ?>) playerMap.get("fragments");
-                    for (Map.Entry<?, ?> frag : fragments.entrySet()) {
-                        String godType = frag.getKey().toString();
-                        Set<Integer> fragmentNumbers = new HashSet<>();
-                        Object value = frag.getValue();
-                        if (value instanceof Iterable<?>) {
-                            for (Object num : (Iterable<?>) value) {
-                                fragmentNumbers.add(Integer.parseInt(num.toString()));
-                            }
-                        }
-                        data.setFragmentsFound(godType, fragmentNumbers);
-                    }
-                }
-                if (playerMap.containsKey("completed")) {
-                    Set<?> completed = (Set<?>) playerMap.get("completed");
-                    for (Object god : completed) {
-                        data.completeTestament(god.toString());
-                    }
+        migrate();
+
+        if (journal != null) {
+            recoverJournal();
+            journal.open(journalSyncInterval);
+        }
+    }
+
+    /**
+     * Queues all unsaved progress, waits for the writer to finish and
+     * releases the storage backend (call from onDisable)
+     * @return true if everything was written within the timeout
+     */
+    public boolean flushAndClose(long timeout, TimeUnit unit) throws IOException {
+        save();
+        boolean flushed = saveQueue.flushAndAwait(timeout, unit);
+        if (journal != null) {
+            journal.close();
+            // Keep the journal for replay unless every snapshot made it to disk
+            if (flushed) {
+                journal.deleteSegmentsUpTo(Long.MAX_VALUE);
+            }
+        }
+        storage.close();
+        return flushed;
+    }
+
+    /**
+     * Writes every stored player to an archive file
+     * Call save() on the main thread first, then this from an async task
+     */
+    public ProgressArchive.Result exportTo(File archive) throws IOException {
+        if (!saveQueue.awaitWrites(30, TimeUnit.SECONDS)) {
+            throw new IOException("Timed out waiting for pending saves");
+        }
+        return ProgressTool.exportTo(storage, archive, logger);
+    }
+
+    /**
+     * Replaces players' progress with the records of an archive file
+     * Call from an async task; records go through the save queue, and players
+     * currently cached are swapped for the imported progress
+     */
+    public ProgressArchive.Result importFrom(File archive) throws IOException {
+        try (InputStream in = new FileInputStream(archive)) {
+            return ProgressArchive.read(in, this::importRecord, logger);
+        }
+    }
+
+    public PlayerDataStorage getStorage() {
+        return storage;
+    }
+
+    private boolean isCached(UUID uuid) {
+        if (onlinePlayers.containsKey(uuid)) {
+            return true;
+        }
+        synchronized (offlineCache) {
+            return offlineCache.containsKey(uuid);
+        }
+    }
+
+    private PlayerTestamentData loadFromStorage(UUID uuid) {
+        try {
+            // A queued write is newer than what is on disk
+            PlayerProgressSnapshot snapshot = saveQueue.getPending(uuid);
+            if (snapshot == null) {
+                snapshot = storage.load(uuid);
+            }
+            if (snapshot != null) {
+                return attachJournal(uuid, snapshot.toData());
+            }
+        } catch (Exception e) {
+            logger.warning("Failed to load testament progress for " + uuid + ": " + e.getMessage());
+        }
+        return attachJournal(uuid, new PlayerTestamentData());
+    }
+
+    private void importRecord(PlayerProgressSnapshot snapshot) throws IOException {
+        // Let the writer catch up so a large import does not pile up in memory
+        while (saveQueue.getPendingCount() > 4096) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Import interrupted");
+            }
+        }
+
+        UUID uuid = snapshot.getUuid();
+        PlayerTestamentData data = attachJournal(uuid, snapshot.toData());
+        if (onlinePlayers.replace(uuid, data) == null) {
+            synchronized (offlineCache) {
+                offlineCache.replace(uuid, data);
+            }
+        }
+        saveQueue.submit(snapshot);
+    }
+
+    /**
+     * Pulls newer progress written by another server into the cached copy
+     */
+    private void refresh(UUID uuid) {
+        try {
+            PlayerProgressSnapshot stored = storage.load(uuid);
+            if (stored != null) {
+                onWritten(stored);
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to refresh testament progress for " + uuid + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Applies a stored record to the cached copy if it is newer
+     * Only adds progress, using the same rules as SharedPlayerDataStorage.merge
+     */
+    private void onWritten(PlayerProgressSnapshot stored) {
+        UUID uuid = stored.getUuid();
+        PlayerTestamentData data = onlinePlayers.get(uuid);
+        if (data == null) {
+            synchronized (offlineCache) {
+                data = offlineCache.get(uuid);
+            }
+        }
+        if (data == null || stored.getVersion() <= data.getVersion()) {
+            return;
+        }
+
+        for (int godIndex = 0; godIndex < GodTypes.COUNT; godIndex++) {
+            String godType = GodTypes.nameOf(godIndex);
+            boolean completedHere = data.isTestamentCompleted(godType);
+            if (stored.isTestamentCompleted(godIndex) && !completedHere) {
+                data.clearFragments(godType);
+                data.completeTestament(godType);
+            } else if (completedHere && !stored.isTestamentCompleted(godIndex)) {
+                continue;
+            }
+
+            int mask = stored.getFragmentMask(godIndex);
+            for (int bit = 0; bit < 7; bit++) {
+                if ((mask & (1 << bit)) != 0) {
+                    data.addFragment(godType, bit + 1);
                 }
-                playerData.put(uuid, data);
             }
         }
+        for (int counterIndex = 0; counterIndex < ProgressCounters.COUNT; counterIndex++) {
+            data.raiseCounter(counterIndex, stored.getCounter(counterIndex));
+        }
+        data.setVersion(stored.getVersion());
+    }
+
+    /**
+     * Routes a player's changes into the journal
+     */
+    private PlayerTestamentData attachJournal(UUID uuid, PlayerTestamentData data) {
+        if (journal == null) {
+            return data;
+        }
+
+        data.setChangeListener(new PlayerTestamentData.ChangeListener() {
+            @Override
+            public void onFragmentAdded(String godType, int fragmentNumber) {
+                journal.append(ProgressJournal.OP_ADD_FRAGMENT, uuid, godType, fragmentNumber);
+            }
+
+            @Override
+            public void onFragmentRemoved(String godType, int fragmentNumber) {
+                journal.append(ProgressJournal.OP_REMOVE_FRAGMENT, uuid, godType, fragmentNumber);
+            }
+
+            @Override
+            public void onFragmentsCleared(String godType) {
+                journal.append(ProgressJournal.OP_CLEAR_FRAGMENTS, uuid, godType, 0);
+            }
+
+            @Override
+            public void onTestamentCompleted(String godType) {
+                journal.append(ProgressJournal.OP_COMPLETE_TESTAMENT, uuid, godType, 0);
+            }
+        });
+        return data;
+    }
+
+    /**
+     * Replays journal segments left by a crash onto the stored snapshots,
+     * writes the result and discards the replayed segments
+     */
+    private void recoverJournal() throws IOException {
+        Map<UUID, PlayerTestamentData> recovered = new HashMap<>();
+        int[] records = {0};
+        journal.replay((op, uuid, godType, fragmentNumber) -> {
+            PlayerTestamentData data = recovered.get(uuid);
+            if (data == null) {
+                PlayerProgressSnapshot snapshot = storage.load(uuid);
+                data = snapshot != null ? snapshot.toData() : new PlayerTestamentData();
+                recovered.put(uuid, data);
+            }
+            ProgressJournal.apply(data, op, godType, fragmentNumber);
+            records[0]++;
+        });
+
+        for (Map.Entry<UUID, PlayerTestamentData> entry : recovered.entrySet()) {
+            storage.write(PlayerProgressSnapshot.of(entry.getKey(), entry.getValue()));
+        }
+        journal.deleteSegmentsUpTo(Long.MAX_VALUE);
+
+        if (records[0] > 0) {
+            logger.info("Recovered " + records[0] + " journaled change(s) for " + recovered.size() + " player(s)");
+        }
+    }
+
+    /**
+     * Adds freshly loaded data to the offline cache, unless another thread got there first
+     */
+    private PlayerTestamentData cacheLoaded(UUID uuid, PlayerTestamentData loaded) {
+        PlayerTestamentData online = onlinePlayers.get(uuid);
+        if (online != null) {
+            return online;
+        }
+        synchronized (offlineCache) {
+            PlayerTestamentData existing = offlineCache.putIfAbsent(uuid, loaded);
+            return existing != null ? existing : loaded;
+        }
+    }
+
+    /**
+     * Snapshots a player and hands it to the writer if they have unsaved changes
+     * Failed writes stay queued inside the save queue and are retried
+     */
+    private void queueIfDirty(UUID uuid, PlayerTestamentData data) {
+        if (data.clearDirty()) {
+            saveQueue.submit(PlayerProgressSnapshot.of(uuid, data));
+        }
+    }
+
+    /**
+     * One-shot migration of older formats into the configured backend
+     */
+    private void migrate() throws IOException {
+        ProgressMigrator.migrateLegacyFile(new File(dataFolder, "progress.yml"), storage, logger);
+
+        // Switching backends: pull records from whichever other backend has them
+        if (storage.hasAnyPlayer()) {
+            return;
+        }
+        for (PlayerDataStorage previous : new PlayerDataStorage[] {
+                new YamlPlayerDataStorage(getPlayersFolder(), logger),
+                new BinaryPlayerDataStorage(getPlayersFolder(), logger),
+                new SqlPlayerDataStorage(getDatabaseFile(), logger) }) {
+            if (previous.getName().equals(storage.getName())) {
+                continue;
+            }
+            if (previous instanceof SqlPlayerDataStorage && !getDatabaseFile().exists()) {
+                continue;
+            }
+            try {
+                ProgressMigrator.migrateStorage(previous, storage, logger);
+            } finally {
+                previous.close();
+            }
+        }
+    }
+
+    private PlayerDataStorage createStorage(String format) {
+        PlayerDataStorage created = PlayerDataStorages.create(format, storageFolder, logger);
+        if (created == null) {
+            logger.warning("Unknown storage.format '" + format + "', falling back to binary");
+            created = PlayerDataStorages.create("binary", storageFolder, logger);
+        }
+        return created;
+    }
+
+    private File getPlayersFolder() {
+        return PlayerDataStorages.getPlayersFolder(storageFolder);
+    }
+
+    private File getDatabaseFile() {
+        return PlayerDataStorages.getDatabaseFile(storageFolder);
     }
-}
\ No newline at end of file
+}
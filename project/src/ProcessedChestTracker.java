@@ -0,0 +1,146 @@
+package com.fallengod.testament.services;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+import com.fallengod.testament.FallenGodPlugin;
+
+/**
+ * Remembers which chests have already rolled for a fragment, per chunk
+ *
+ * Each chunk stores its processed chests in its own PersistentDataContainer as
+ * an int array: the world's clear generation followed by the sorted block
+ * positions (x and z within the chunk, y offset to be non-negative). Arrays
+ * are cached only while the chunk is loaded, so memory follows loaded chunks
+ * and the marks survive restarts. Clearing bumps the world's generation,
+ * which invalidates every chunk's marks without visiting them.
+ * Main thread only.
+ */
+public class ProcessedChestTracker {
+
+    private static final int Y_OFFSET = 2048;
+
+    private final NamespacedKey chestsKey;
+    private final NamespacedKey generationKey;
+    // world -> chunk key -> stored array (generation, then sorted positions)
+    private final Map<UUID, Map<Long, int[]>> loadedChunks = new HashMap<>();
+    // world -> current clear generation
+    private final Map<UUID, Integer> generations = new HashMap<>();
+
+    public ProcessedChestTracker(FallenGodPlugin plugin) {
+        this.chestsKey = new NamespacedKey(plugin, "processed_chests");
+        this.generationKey = new NamespacedKey(plugin, "processed_chests_generation");
+    }
+
+    public boolean isProcessed(Location location) {
+        int[] stored = getChunkEntry(location);
+        return Arrays.binarySearch(stored, 1, stored.length, packPosition(location)) >= 0;
+    }
+
+    public void markProcessed(Location location) {
+        int[] stored = getChunkEntry(location);
+        int position = packPosition(location);
+        int index = Arrays.binarySearch(stored, 1, stored.length, position);
+        if (index >= 0) {
+            return;
+        }
+
+        int insertAt = -index - 1;
+        int[] updated = new int[stored.length + 1];
+        System.arraycopy(stored, 0, updated, 0, insertAt);
+        updated[insertAt] = position;
+        System.arraycopy(stored, insertAt, updated, insertAt + 1, stored.length - insertAt);
+
+        Chunk chunk = location.getChunk();
+        chunk.getPersistentDataContainer().set(chestsKey, PersistentDataType.INTEGER_ARRAY, updated);
+        loadedChunks.computeIfAbsent(chunk.getWorld().getUID(), k -> new HashMap<>())
+            .put(chunkKey(chunk.getX(), chunk.getZ()), updated);
+    }
+
+    /**
+     * Drops a chunk's cached marks; they stay in the chunk's data
+     */
+    public void unloadChunk(Chunk chunk) {
+        Map<Long, int[]> chunks = loadedChunks.get(chunk.getWorld().getUID());
+        if (chunks != null) {
+            chunks.remove(chunkKey(chunk.getX(), chunk.getZ()));
+        }
+    }
+
+    /**
+     * Forgets every processed chest in every loaded world
+     */
+    public void clear(Iterable<World> worlds) {
+        for (World world : worlds) {
+            int next = getGeneration(world) + 1;
+            world.getPersistentDataContainer().set(generationKey, PersistentDataType.INTEGER, next);
+            generations.put(world.getUID(), next);
+        }
+        loadedChunks.clear();
+    }
+
+    /**
+     * Gets the number of processed chests in loaded chunks
+     */
+    public int getLoadedCount() {
+        int count = 0;
+        for (Map<Long, int[]> chunks : loadedChunks.values()) {
+            for (int[] stored : chunks.values()) {
+                count += stored.length - 1;
+            }
+        }
+        return count;
+    }
+
+    private int[] getChunkEntry(Location location) {
+        World world = location.getWorld();
+        int chunkX = location.getBlockX() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+        Map<Long, int[]> chunks = loadedChunks.computeIfAbsent(world.getUID(), k -> new HashMap<>());
+        long key = chunkKey(chunkX, chunkZ);
+
+        int[] stored = chunks.get(key);
+        if (stored == null) {
+            stored = readChunk(location.getChunk(), getGeneration(world));
+            chunks.put(key, stored);
+        }
+        return stored;
+    }
+
+    private int[] readChunk(Chunk chunk, int generation) {
+        PersistentDataContainer container = chunk.getPersistentDataContainer();
+        int[] stored = container.get(chestsKey, PersistentDataType.INTEGER_ARRAY);
+        if (stored == null || stored.length == 0 || stored[0] != generation) {
+            // Nothing stored, or marks from before the last clear
+            return new int[] {generation};
+        }
+        return stored;
+    }
+
+    private int getGeneration(World world) {
+        Integer generation = generations.get(world.getUID());
+        if (generation == null) {
+            generation = world.getPersistentDataContainer().getOrDefault(generationKey, PersistentDataType.INTEGER, 0);
+            generations.put(world.getUID(), generation);
+        }
+        return generation;
+    }
+
+    private static int packPosition(Location location) {
+        int y = (location.getBlockY() + Y_OFFSET) & 0xFFF;
+        return (y << 8) | ((location.getBlockX() & 15) << 4) | (location.getBlockZ() & 15);
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+}
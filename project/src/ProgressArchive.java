@@ -0,0 +1,162 @@
+package com.fallengod.testament.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Streaming backup format for player progress
+ *
+ * Layout:
+ *   int     magic "FGPA"
+ *   byte    archive format version
+ *   records int length, length bytes of PlayerProgressCodec data, int CRC32 of those bytes
+ *   int     0 (end marker), long record count
+ *
+ * Records are written and read one at a time, so memory use does not grow
+ * with the number of players. A record whose checksum does not match is
+ * skipped; the length prefix lets the reader carry on with the next one.
+ */
+public final class ProgressArchive {
+
+    private static final int MAGIC = 0x46475041;
+    private static final int FORMAT = 1;
+    // Far larger than any real record, guards against reading a corrupt length
+    private static final int MAX_RECORD_SIZE = 4096;
+
+    /**
+     * Receives records read from an archive
+     */
+    public interface RecordSink {
+        void accept(PlayerProgressSnapshot snapshot) throws IOException;
+    }
+
+    /**
+     * Counts from an export or import
+     */
+    public static final class Result {
+        private final long records;
+        private final long skipped;
+
+        Result(long records, long skipped) {
+            this.records = records;
+            this.skipped = skipped;
+        }
+
+        public long getRecords() {
+            return records;
+        }
+
+        public long getSkipped() {
+            return skipped;
+        }
+    }
+
+    private ProgressArchive() {
+    }
+
+    /**
+     * Streams every stored player into an archive
+     */
+    public static Result export(PlayerDataStorage storage, OutputStream target, Logger logger) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target));
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT);
+
+        long[] counts = {0, 0};
+        storage.forEachPlayer(uuid -> {
+            PlayerProgressSnapshot snapshot;
+            try {
+                snapshot = storage.load(uuid);
+            } catch (IOException e) {
+                logger.warning("Skipping unreadable progress for " + uuid + ": " + e.getMessage());
+                counts[1]++;
+                return;
+            }
+            if (snapshot == null) {
+                return;
+            }
+
+            byte[] record = PlayerProgressCodec.encode(snapshot);
+            out.writeInt(record.length);
+            out.write(record);
+            out.writeInt(checksum(record));
+            counts[0]++;
+        });
+
+        out.writeInt(0);
+        out.writeLong(counts[0]);
+        out.flush();
+        return new Result(counts[0], counts[1]);
+    }
+
+    /**
+     * Reads an archive record by record, handing each valid one to the sink
+     */
+    public static Result read(InputStream source, RecordSink sink, Logger logger) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(source));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a progress archive");
+        }
+        int format = in.readUnsignedByte();
+        if (format != FORMAT) {
+            throw new IOException("Unsupported progress archive format " + format);
+        }
+
+        long records = 0;
+        long skipped = 0;
+        try {
+            while (true) {
+                int length = in.readInt();
+                if (length == 0) {
+                    long expected = in.readLong();
+                    if (expected != records + skipped) {
+                        logger.warning("Progress archive lists " + expected + " record(s) but " + (records + skipped) + " were found");
+                    }
+                    break;
+                }
+                if (length < 0 || length > MAX_RECORD_SIZE) {
+                    // Without a trustworthy length there is no way to find the next record
+                    logger.warning("Progress archive is corrupt after record " + (records + skipped) + ", stopping");
+                    skipped++;
+                    break;
+                }
+
+                byte[] record = new byte[length];
+                in.readFully(record);
+                if (in.readInt() != checksum(record)) {
+                    logger.warning("Skipping progress record " + (records + skipped) + ": checksum mismatch");
+                    skipped++;
+                    continue;
+                }
+
+                PlayerProgressSnapshot snapshot;
+                try {
+                    snapshot = PlayerProgressCodec.decode(record);
+                } catch (IOException e) {
+                    logger.warning("Skipping progress record " + (records + skipped) + ": " + e.getMessage());
+                    skipped++;
+                    continue;
+                }
+                sink.accept(snapshot);
+                records++;
+            }
+        } catch (EOFException e) {
+            logger.warning("Progress archive is truncated, read " + records + " record(s)");
+        }
+        return new Result(records, skipped);
+    }
+
+    private static int checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length);
+        return (int) crc.getValue();
+    }
+}
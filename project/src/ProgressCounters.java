@@ -0,0 +1,124 @@
+package com.fallengod.testament.data;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ordering of the per-player activity counters kept with progress
+ * Index 0 counts chests opened, then kills per bundled mob type (by EntityType
+ * name), then the fragment pity counter. These built-in indexes are what the
+ * binary format writes, so new built-in counters must only ever be appended.
+ *
+ * After them come slots for kill counters registered at runtime, for mobs
+ * added to the drop table in config. Their indexes depend on registration
+ * order, so storage keys them by name.
+ */
+public final class ProgressCounters {
+
+    public static final String CHESTS_OPENED = "chests_opened";
+    public static final String KILLS_PREFIX = "kills.";
+    /** Fragment rolls since the player last got a fragment they did not own */
+    public static final String FRAGMENT_PITY = "fragment_pity";
+
+    private static final List<String> ORDER = Collections.unmodifiableList(Arrays.asList(
+        CHESTS_OPENED,
+        "kills.ENDER_DRAGON", "kills.WITHER", "kills.ELDER_GUARDIAN", "kills.WARDEN",
+        "kills.EVOKER", "kills.WITHER_SKELETON", "kills.SHULKER", "kills.BLAZE",
+        "kills.GHAST", "kills.ENDERMAN", "kills.GUARDIAN", "kills.PIGLIN_BRUTE",
+        "kills.SKELETON", "kills.ZOMBIE", "kills.PHANTOM", "kills.ZOMBIFIED_PIGLIN",
+        "kills.MAGMA_CUBE", "kills.HOGLIN", "kills.DROWNED", "kills.SQUID",
+        "kills.GLOW_SQUID", "kills.VINDICATOR", "kills.WITCH", "kills.CREEPER",
+        "kills.SPIDER", "kills.CAVE_SPIDER", "kills.VEX", "kills.ENDERMITE",
+        "kills.SILVERFISH",
+        FRAGMENT_PITY));
+
+    /** Counters with a fixed index */
+    public static final int BUILT_IN_COUNT = ORDER.size();
+    /** Slots for counters registered at runtime */
+    public static final int MAX_REGISTERED = 32;
+    public static final int COUNT = BUILT_IN_COUNT + MAX_REGISTERED;
+    public static final int CHESTS_OPENED_INDEX = 0;
+    public static final int FRAGMENT_PITY_INDEX = ORDER.indexOf(FRAGMENT_PITY);
+
+    // Registered names by slot; a slot is never reassigned while the server runs
+    private static final AtomicReferenceArray<String> REGISTERED = new AtomicReferenceArray<>(MAX_REGISTERED);
+    private static final Map<String, Integer> REGISTERED_INDEX = new ConcurrentHashMap<>();
+    private static int registeredCount;
+
+    private ProgressCounters() {
+    }
+
+    /**
+     * Gets the storage index of a counter, or -1 if unknown
+     */
+    public static int indexOf(String counter) {
+        if (counter == null) {
+            return -1;
+        }
+        int index = ORDER.indexOf(counter);
+        return index >= 0 ? index : REGISTERED_INDEX.getOrDefault(counter, -1);
+    }
+
+    /**
+     * Gets the storage index of a stored counter, registering unknown kill counters
+     * Keeps kills of mobs that were added in config even before the drop table loads.
+     * @return the index, or -1 if the counter is unknown or no slots are left
+     */
+    public static int resolve(String counter) {
+        int index = indexOf(counter);
+        if (index < 0 && counter != null && counter.startsWith(KILLS_PREFIX)) {
+            index = register(counter);
+        }
+        return index;
+    }
+
+    /**
+     * Gets the index of a mob's kill counter, registering one if needed
+     * @return the index, or -1 if no slots are left
+     */
+    public static int registerKills(String entityTypeName) {
+        return register(KILLS_PREFIX + entityTypeName);
+    }
+
+    /**
+     * Checks if a counter has a fixed index, as opposed to a registered one
+     */
+    public static boolean isBuiltIn(int index) {
+        return index >= 0 && index < BUILT_IN_COUNT;
+    }
+
+    /**
+     * Gets the index of a mob's kill counter, or -1 if kills of that mob are not tracked
+     */
+    public static int killsIndexOf(String entityTypeName) {
+        return indexOf(KILLS_PREFIX + entityTypeName);
+    }
+
+    /**
+     * Gets the counter name for a storage index, or null if out of range
+     */
+    public static String nameOf(int index) {
+        if (isBuiltIn(index)) {
+            return ORDER.get(index);
+        }
+        return index >= BUILT_IN_COUNT && index < COUNT ? REGISTERED.get(index - BUILT_IN_COUNT) : null;
+    }
+
+    private static synchronized int register(String counter) {
+        int index = indexOf(counter);
+        if (index >= 0) {
+            return index;
+        }
+        if (registeredCount == MAX_REGISTERED) {
+            return -1;
+        }
+        index = BUILT_IN_COUNT + registeredCount;
+        REGISTERED.set(registeredCount++, counter);
+        REGISTERED_INDEX.put(counter, index);
+        return index;
+    }
+}
@@ -0,0 +1,308 @@
+package com.fallengod.testament.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of progress changes
+ *
+ * Changes are buffered in memory and fsynced in small batches by a background
+ * thread, so a crash loses at most the current batch. The journal is split into
+ * numbered segments (journal/progress-<seq>.journal); once the snapshots covering
+ * a segment have been written, the segment is deleted. Rotating only marks a
+ * boundary in the buffer; the sync thread does the file work.
+ */
+public class ProgressJournal {
+
+    public static final byte OP_ADD_FRAGMENT = 1;
+    public static final byte OP_COMPLETE_TESTAMENT = 2;
+    public static final byte OP_CLEAR_FRAGMENTS = 3;
+    public static final byte OP_REMOVE_FRAGMENT = 4;
+
+    // op, uuid (2 longs), god index, fragment number, then a CRC32 of those bytes
+    private static final int PAYLOAD_SIZE = 1 + 8 + 8 + 1 + 1;
+    private static final int RECORD_SIZE = PAYLOAD_SIZE + 4;
+    private static final String PREFIX = "progress-";
+    private static final String EXTENSION = ".journal";
+
+    /**
+     * Receives journal records during replay, oldest first
+     */
+    public interface ReplayHandler {
+        void accept(byte op, UUID uuid, String godType, int fragmentNumber) throws IOException;
+    }
+
+    private final File folder;
+    private final Logger logger;
+    // Records appended since the last sync (guarded by itself)
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    // Unsynced tails of segments sealed by rotate, oldest first, and the segment
+    // the buffer belongs to (guarded by buffer)
+    private final List<byte[]> sealedTails = new ArrayList<>();
+    private long bufferSegment;
+    // Guards the channel and segment number
+    private final Object channelLock = new Object();
+    private ScheduledExecutorService syncer;
+    private FileChannel channel;
+    private long segment;
+    // Segments up to this one are closed and safe to delete
+    private volatile long closedSegment = Long.MAX_VALUE;
+
+    public ProgressJournal(File folder, Logger logger) {
+        this.folder = folder;
+        this.logger = logger;
+    }
+
+    /**
+     * Opens a fresh segment and starts syncing every interval
+     * Replay any existing segments before calling this
+     */
+    public void open(long syncIntervalMillis) throws IOException {
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+
+        synchronized (channelLock) {
+            List<Long> existing = listSegments();
+            segment = existing.isEmpty() ? 1 : existing.get(existing.size() - 1) + 1;
+            channel = openSegment(segment);
+            closedSegment = segment - 1;
+            synchronized (buffer) {
+                bufferSegment = segment;
+            }
+        }
+
+        syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "FallenGod-Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(10, syncIntervalMillis);
+        syncer.scheduleWithFixedDelay(() -> {
+            try {
+                sync();
+            } catch (IOException e) {
+                logger.warning("Failed to sync progress journal: " + e.getMessage());
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Buffers a change; it becomes durable at the next sync
+     */
+    public void append(byte op, UUID uuid, String godType, int fragmentNumber) {
+        int godIndex = GodTypes.indexOf(godType);
+        if (godIndex < 0) {
+            return;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.put(op);
+        record.putLong(uuid.getMostSignificantBits());
+        record.putLong(uuid.getLeastSignificantBits());
+        record.put((byte) godIndex);
+        record.put((byte) fragmentNumber);
+        record.putInt(checksum(record.array()));
+
+        synchronized (buffer) {
+            buffer.write(record.array(), 0, RECORD_SIZE);
+        }
+    }
+
+    /**
+     * Writes buffered records to their segments and fsyncs them
+     * Segments sealed since the last sync get their remaining records, then are
+     * closed and replaced by the next one
+     */
+    public void sync() throws IOException {
+        synchronized (channelLock) {
+            List<byte[]> tails;
+            byte[] batch;
+            synchronized (buffer) {
+                if (sealedTails.isEmpty() && buffer.size() == 0) {
+                    return;
+                }
+                tails = new ArrayList<>(sealedTails);
+                sealedTails.clear();
+                batch = buffer.toByteArray();
+                buffer.reset();
+            }
+            if (channel == null) {
+                int dropped = batch.length;
+                for (byte[] tail : tails) {
+                    dropped += tail.length;
+                }
+                logger.warning("Progress journal is closed, dropped " + dropped / RECORD_SIZE + " record(s)");
+                return;
+            }
+
+            for (byte[] tail : tails) {
+                write(tail);
+                channel.close();
+                channel = null;
+                closedSegment = segment;
+                segment++;
+                channel = openSegment(segment);
+            }
+            write(batch);
+        }
+    }
+
+    /**
+     * Seals the current segment and starts a new one
+     * Only marks the boundary in the buffer, so it never waits on the disk; the
+     * sealed segment is written out and closed by the next sync
+     * @return the sealed segment number, for deleteSegmentsUpTo once it is covered by snapshots
+     */
+    public long rotate() {
+        synchronized (buffer) {
+            sealedTails.add(buffer.toByteArray());
+            buffer.reset();
+            return bufferSegment++;
+        }
+    }
+
+    /**
+     * Reads every segment on disk, oldest first
+     * A torn or corrupt record ends its segment, as nothing after it was acknowledged
+     */
+    public void replay(ReplayHandler handler) throws IOException {
+        for (long seq : listSegments()) {
+            File file = getSegmentFile(seq);
+            byte[] data = Files.readAllBytes(file.toPath());
+            int complete = data.length / RECORD_SIZE;
+
+            for (int i = 0; i < complete; i++) {
+                ByteBuffer record = ByteBuffer.wrap(data, i * RECORD_SIZE, RECORD_SIZE);
+                byte[] payload = new byte[PAYLOAD_SIZE];
+                record.get(payload);
+                if (record.getInt() != checksum(payload)) {
+                    logger.warning("Progress journal " + file.getName() + " is corrupt after record " + i + ", ignoring the rest");
+                    break;
+                }
+
+                ByteBuffer fields = ByteBuffer.wrap(payload);
+                byte op = fields.get();
+                UUID uuid = new UUID(fields.getLong(), fields.getLong());
+                String godType = GodTypes.nameOf(fields.get());
+                int fragmentNumber = fields.get();
+                if (godType != null) {
+                    handler.accept(op, uuid, godType, fragmentNumber);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes sealed segments up to and including the given number
+     * Segments the sync thread has not closed yet are left for a later call
+     */
+    public void deleteSegmentsUpTo(long seq) {
+        long limit = Math.min(seq, closedSegment);
+        for (long existing : listSegments()) {
+            if (existing <= limit) {
+                File file = getSegmentFile(existing);
+                if (!file.delete() && file.exists()) {
+                    logger.warning("Failed to delete progress journal " + file.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Syncs what is buffered and closes the current segment
+     */
+    public void close() throws IOException {
+        if (syncer != null) {
+            syncer.shutdown();
+        }
+        synchronized (channelLock) {
+            sync();
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+            closedSegment = Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Applies a replayed record to a player's progress
+     */
+    public static void apply(PlayerTestamentData data, byte op, String godType, int fragmentNumber) {
+        switch (op) {
+            case OP_ADD_FRAGMENT:
+                data.addFragment(godType, fragmentNumber);
+                break;
+            case OP_REMOVE_FRAGMENT:
+                data.removeFragment(godType, fragmentNumber);
+                break;
+            case OP_CLEAR_FRAGMENTS:
+                data.clearFragments(godType);
+                break;
+            case OP_COMPLETE_TESTAMENT:
+                data.completeTestament(godType);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void write(byte[] records) throws IOException {
+        if (records.length == 0) {
+            return;
+        }
+        ByteBuffer data = ByteBuffer.wrap(records);
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+        channel.force(false);
+    }
+
+    private FileChannel openSegment(long seq) throws IOException {
+        return FileChannel.open(getSegmentFile(seq).toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private List<Long> listSegments() {
+        List<Long> segments = new ArrayList<>();
+        File[] files = folder.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(EXTENSION));
+        if (files == null) {
+            return segments;
+        }
+
+        for (File file : files) {
+            String name = file.getName();
+            try {
+                segments.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - EXTENSION.length())));
+            } catch (NumberFormatException e) {
+                logger.warning("Ignoring unexpected journal file " + name);
+            }
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private File getSegmentFile(long seq) {
+        return new File(folder, PREFIX + seq + EXTENSION);
+    }
+
+    private static int checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, PAYLOAD_SIZE);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,84 @@
+package com.fallengod.testament.data;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * One-shot migration of existing progress into the configured storage backend
+ * Migrated source files are renamed with a .migrated suffix rather than deleted
+ */
+public final class ProgressMigrator {
+
+    private ProgressMigrator() {
+    }
+
+    /**
+     * Moves the old all-players progress.yml into the target storage
+     * @return number of players migrated
+     */
+    public static int migrateLegacyFile(File legacyFile, PlayerDataStorage target, Logger logger) throws IOException {
+        if (!legacyFile.exists()) {
+            return 0;
+        }
+
+        int migrated = 0;
+        try (FileReader reader = new FileReader(legacyFile)) {
+            Object obj = new Yaml().load(reader);
+            if (obj instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
+                    if (!(entry.getValue() instanceof Map)) continue;
+                    try {
+                        UUID uuid = UUID.fromString(entry.getKey().toString());
+                        target.write(YamlPlayerDataStorage.readPlayer(uuid, (Map<?, ?>) entry.getValue()));
+                        migrated++;
+                    } catch (IllegalArgumentException e) {
+                        logger.warning("Skipping invalid legacy progress entry '" + entry.getKey() + "': " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        markMigrated(legacyFile);
+        logger.info("Migrated " + migrated + " player(s) from " + legacyFile.getName() + " to " + target.getName() + " storage");
+        return migrated;
+    }
+
+    /**
+     * Copies every player from one backend to another, e.g. per-player YAML to binary
+     * Players that already exist in the target are left untouched
+     * @return number of players migrated
+     */
+    public static int migrateStorage(PlayerDataStorage source, PlayerDataStorage target, Logger logger) throws IOException {
+        int migrated = 0;
+        for (UUID uuid : source.listPlayers()) {
+            try {
+                if (target.load(uuid) != null) continue;
+                PlayerProgressSnapshot snapshot = source.load(uuid);
+                if (snapshot != null) {
+                    target.write(snapshot);
+                    migrated++;
+                }
+            } catch (IOException e) {
+                logger.warning("Failed to migrate progress for " + uuid + ": " + e.getMessage());
+            }
+        }
+
+        if (migrated > 0) {
+            logger.info("Migrated " + migrated + " player(s) from " + source.getName() + " to " + target.getName() + " storage");
+        }
+        return migrated;
+    }
+
+    private static void markMigrated(File file) throws IOException {
+        File backup = new File(file.getParentFile(), file.getName() + ".migrated");
+        if (!file.renameTo(backup)) {
+            throw new IOException("Could not rename " + file.getName() + " after migration");
+        }
+    }
+}
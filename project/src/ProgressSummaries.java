@@ -0,0 +1,45 @@
+package com.fallengod.testament.data;
+
+/**
+ * Precomputed progress summary lines, one per possible fragment mask
+ * Rendering a god's progress is a table lookup instead of string building
+ */
+public final class ProgressSummaries {
+
+    private static final String COMPLETED = "§a§lCOMPLETED";
+    // Indexed by fragment mask (bit 0 = fragment 1)
+    private static final String[] BY_MASK = new String[1 << 7];
+
+    static {
+        for (int mask = 0; mask < BY_MASK.length; mask++) {
+            BY_MASK[mask] = render(mask);
+        }
+    }
+
+    private ProgressSummaries() {
+    }
+
+    /**
+     * Gets the summary for a fragment mask, or the completed line
+     */
+    public static String of(int fragmentMask, boolean completed) {
+        return completed ? COMPLETED : BY_MASK[fragmentMask & 0x7F];
+    }
+
+    private static String render(int mask) {
+        StringBuilder summary = new StringBuilder();
+        summary.append("§7").append(Integer.bitCount(mask)).append("/7 §8[");
+
+        for (int i = 1; i <= 7; i++) {
+            if ((mask & (1 << (i - 1))) != 0) {
+                summary.append("§a").append(i);
+            } else {
+                summary.append("§c").append(i);
+            }
+            if (i < 7) summary.append("§8,");
+        }
+
+        summary.append("§8]");
+        return summary.toString();
+    }
+}
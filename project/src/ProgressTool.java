@@ -0,0 +1,120 @@
+package com.fallengod.testament.data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Standalone export/import of player progress, run with the server stopped:
+ *
+ *   java -cp FallenGodTestament.jar com.fallengod.testament.data.ProgressTool
+ *       export|import <plugin folder> <binary|yaml|sql> <archive file>
+ *
+ * The yaml and sql formats need SnakeYAML or the SQLite driver on the classpath.
+ */
+public final class ProgressTool {
+
+    private static final int BATCH_SIZE = 256;
+
+    private ProgressTool() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 4) {
+            System.err.println("Usage: ProgressTool <export|import> <plugin folder> <binary|yaml|sql> <archive file>");
+            System.exit(2);
+            return;
+        }
+
+        Logger logger = Logger.getLogger("ProgressTool");
+        PlayerDataStorage storage = PlayerDataStorages.create(args[2], new File(args[1]), logger);
+        if (storage == null) {
+            System.err.println("Unknown storage format: " + args[2]);
+            System.exit(2);
+            return;
+        }
+
+        File archive = new File(args[3]);
+        // Exit only after the storage is closed, so the sql backend releases its connection
+        int exitCode = 0;
+        try {
+            ProgressArchive.Result result;
+            switch (args[0].toLowerCase()) {
+                case "export":
+                    result = exportTo(storage, archive, logger);
+                    System.out.println("Exported " + result.getRecords() + " player(s), skipped " + result.getSkipped());
+                    break;
+                case "import":
+                    result = importFrom(storage, archive, logger);
+                    System.out.println("Imported " + result.getRecords() + " player(s), skipped " + result.getSkipped());
+                    break;
+                default:
+                    System.err.println("Unknown action: " + args[0]);
+                    exitCode = 2;
+                    break;
+            }
+        } catch (IOException e) {
+            System.err.println("Failed: " + e.getMessage());
+            exitCode = 1;
+        } finally {
+            try {
+                storage.close();
+            } catch (IOException e) {
+                logger.warning("Failed to close storage: " + e.getMessage());
+            }
+        }
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * Writes every stored player to an archive file (written to a temp file first)
+     */
+    public static ProgressArchive.Result exportTo(PlayerDataStorage storage, File archive, Logger logger) throws IOException {
+        File parent = archive.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+
+        File temp = new File(archive.getPath() + ".tmp");
+        ProgressArchive.Result result;
+        try (OutputStream out = new FileOutputStream(temp)) {
+            result = ProgressArchive.export(storage, out, logger);
+        }
+        if (archive.exists() && !archive.delete()) {
+            throw new IOException("Could not replace " + archive);
+        }
+        if (!temp.renameTo(archive)) {
+            throw new IOException("Could not move " + temp + " to " + archive);
+        }
+        return result;
+    }
+
+    /**
+     * Writes every valid record of an archive file into storage, replacing existing records
+     */
+    public static ProgressArchive.Result importFrom(PlayerDataStorage storage, File archive, Logger logger) throws IOException {
+        List<PlayerProgressSnapshot> batch = new ArrayList<>(BATCH_SIZE);
+        ProgressArchive.Result result;
+        try (InputStream in = new FileInputStream(archive)) {
+            result = ProgressArchive.read(in, snapshot -> {
+                batch.add(snapshot);
+                if (batch.size() >= BATCH_SIZE) {
+                    storage.writeAll(batch);
+                    batch.clear();
+                }
+            }, logger);
+        }
+        if (!batch.isEmpty()) {
+            storage.writeAll(batch);
+        }
+        return result;
+    }
+}
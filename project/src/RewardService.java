@@ -117,6 +117,7 @@ public class RewardService {
         
         // Give items
         giveItems(player, Arrays.asList(helmet, chestplate, leggings, boots, heartOfFallenGod));
+        plugin.getHeartEffectListener().requestPossessionCheck(player);
         
         // Permanent effect
         addPermanentEffect(player, PotionEffectType.RESISTANCE, 0);
@@ -223,6 +224,7 @@ public class RewardService {
         ItemStack veilOfNullification = heartOfFallenGod.createVeilOfNullification();
         
         giveItems(player, Arrays.asList(veilOfNullification));
+        plugin.getHeartEffectListener().requestPossessionCheck(player);
         addPermanentEffect(player, PotionEffectType.NIGHT_VISION, 0);
         addPermanentEffect(player, PotionEffectType.SLOW_FALLING, 0);
         announceReward(player, "VEIL GOD", "Master of Dimensions Equipment + Veil of Nullification");
@@ -0,0 +1,239 @@
+package com.fallengod.testament.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fixed-size ring of the most recent fragment rolls
+ *
+ * Each roll keeps its seed, the chance it was rolled against, the inputs that
+ * decide which later draws happen (see the flags, dimension and height), and
+ * for rolls that passed the god, the owned fragments and the fragment number,
+ * in parallel primitive arrays, so recording never allocates. RollReplay
+ * re-derives every draw of a recorded roll from these outside the server.
+ * Main thread only.
+ */
+public class RollHistory {
+
+    /**
+     * Kinds of fragment roll
+     */
+    public enum Type {
+        CHEST,
+        MOB
+    }
+
+    /** A passed chest chance was blocked by the location cooldown or min_distance */
+    public static final int LOCATION_BLOCKED = 1;
+    /** The player's mob drop cooldown was active */
+    public static final int ON_COOLDOWN = 1 << 1;
+    /** The mob skips the rarity gate */
+    public static final int BOSS = 1 << 2;
+    /** The mob has no god, so a passed roll picks a random one */
+    public static final int RANDOM_GOD = 1 << 3;
+
+    private final long[] times;
+    private final long[] seeds;
+    private final long[] playersHi;
+    private final long[] playersLo;
+    private final double[] chances;
+    private final byte[] types;
+    private final boolean[] passed;
+    private final byte[] flags;
+    private final byte[] dimensions;
+    private final int[] heights;
+    private final byte[] gods;
+    private final byte[] ownedMasks;
+    private final byte[] fragmentNumbers;
+    private long recorded;
+
+    public RollHistory(int capacity) {
+        int size = Math.max(1, capacity);
+        this.times = new long[size];
+        this.seeds = new long[size];
+        this.playersHi = new long[size];
+        this.playersLo = new long[size];
+        this.chances = new double[size];
+        this.types = new byte[size];
+        this.passed = new boolean[size];
+        this.flags = new byte[size];
+        this.dimensions = new byte[size];
+        this.heights = new int[size];
+        this.gods = new byte[size];
+        this.ownedMasks = new byte[size];
+        this.fragmentNumbers = new byte[size];
+    }
+
+    /**
+     * Records a roll once its chance and rarity gates are decided
+     * @param dimension FragmentChances dimension of the roll's location
+     * @param rollFlags LOCATION_BLOCKED, ON_COOLDOWN, BOSS and RANDOM_GOD bits
+     */
+    public void record(Type type, long seed, UUID player, double chance, int dimension, int y, int rollFlags,
+                       boolean rollPassed) {
+        int slot = (int) (recorded % times.length);
+        times[slot] = System.currentTimeMillis();
+        seeds[slot] = seed;
+        playersHi[slot] = player.getMostSignificantBits();
+        playersLo[slot] = player.getLeastSignificantBits();
+        chances[slot] = chance;
+        types[slot] = (byte) type.ordinal();
+        passed[slot] = rollPassed;
+        flags[slot] = (byte) rollFlags;
+        dimensions[slot] = (byte) dimension;
+        heights[slot] = y;
+        gods[slot] = -1;
+        ownedMasks[slot] = 0;
+        fragmentNumbers[slot] = 0;
+        recorded++;
+    }
+
+    /**
+     * Adds the fragment a passed roll went on to draw to the latest record
+     * @param ownedMask the player's fragments of the god before the draw
+     */
+    public void recordFragment(int godIndex, int ownedMask, int fragmentNumber) {
+        if (recorded == 0) {
+            return;
+        }
+        int slot = (int) ((recorded - 1) % times.length);
+        gods[slot] = (byte) godIndex;
+        ownedMasks[slot] = (byte) ownedMask;
+        fragmentNumbers[slot] = (byte) fragmentNumber;
+    }
+
+    /**
+     * Gets the number of rolls recorded since startup, including overwritten ones
+     */
+    public long getRecordedCount() {
+        return recorded;
+    }
+
+    /**
+     * Copies out up to the given number of the latest rolls, oldest first
+     */
+    public List<Entry> getRecent(int count) {
+        int available = (int) Math.min(recorded, times.length);
+        int n = Math.max(0, Math.min(count, available));
+        List<Entry> entries = new ArrayList<>(n);
+        for (long i = recorded - n; i < recorded; i++) {
+            int slot = (int) (i % times.length);
+            entries.add(new Entry(times[slot], Type.values()[types[slot]], seeds[slot],
+                new UUID(playersHi[slot], playersLo[slot]), chances[slot], passed[slot], flags[slot],
+                dimensions[slot], heights[slot], gods[slot], ownedMasks[slot], fragmentNumbers[slot]));
+        }
+        return entries;
+    }
+
+    public void clear() {
+        recorded = 0;
+    }
+
+    /**
+     * One recorded roll
+     */
+    public static final class Entry {
+        private final long time;
+        private final Type type;
+        private final long seed;
+        private final UUID player;
+        private final double chance;
+        private final boolean passed;
+        private final int flags;
+        private final int dimension;
+        private final int y;
+        private final int godIndex;
+        private final int ownedMask;
+        private final int fragmentNumber;
+
+        Entry(long time, Type type, long seed, UUID player, double chance, boolean passed, int flags,
+              int dimension, int y, int godIndex, int ownedMask, int fragmentNumber) {
+            this.time = time;
+            this.type = type;
+            this.seed = seed;
+            this.player = player;
+            this.chance = chance;
+            this.passed = passed;
+            this.flags = flags;
+            this.dimension = dimension;
+            this.y = y;
+            this.godIndex = godIndex;
+            this.ownedMask = ownedMask;
+            this.fragmentNumber = fragmentNumber;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        public UUID getPlayer() {
+            return player;
+        }
+
+        /**
+         * Gets the chance the first draw was compared against
+         */
+        public double getChance() {
+            return chance;
+        }
+
+        /**
+         * Checks if the roll passed its chance and every rarity gate
+         */
+        public boolean isPassed() {
+            return passed;
+        }
+
+        /**
+         * Gets the LOCATION_BLOCKED, ON_COOLDOWN, BOSS and RANDOM_GOD bits
+         */
+        public int getFlags() {
+            return flags;
+        }
+
+        public boolean hasFlag(int flag) {
+            return (flags & flag) != 0;
+        }
+
+        /**
+         * Gets the FragmentChances dimension of the roll's location
+         */
+        public int getDimension() {
+            return dimension;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        /**
+         * Gets the GodTypes index of the drawn fragment, -1 if none was drawn
+         */
+        public int getGodIndex() {
+            return godIndex;
+        }
+
+        /**
+         * Gets the player's fragments of the god before the draw (bit 0 = fragment 1)
+         */
+        public int getOwnedMask() {
+            return ownedMask;
+        }
+
+        /**
+         * Gets the drawn fragment number (1-7), 0 if none was drawn
+         */
+        public int getFragmentNumber() {
+            return fragmentNumber;
+        }
+    }
+}
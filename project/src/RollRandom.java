@@ -0,0 +1,70 @@
+package com.fallengod.testament.services;
+
+import java.util.UUID;
+
+/**
+ * SplitMix64 generator that is re-seeded for every fragment roll
+ *
+ * Every chest or mob roll draws from its own 64-bit seed, so that seed plus
+ * the roll's recorded inputs (see RollHistory) replays its whole draw
+ * sequence later through RollReplay. Reseeding
+ * only resets a long, so rolling never allocates. Not thread-safe; each
+ * instance belongs to one thread.
+ */
+public final class RollRandom {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    /**
+     * Starts a new draw sequence
+     */
+    public void reset(long seed) {
+        state = seed;
+    }
+
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /**
+     * Gets a uniform value in [0, 1)
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Gets a uniform value in [0, bound)
+     */
+    public int nextInt(int bound) {
+        return (int) ((nextLong() >>> 33) * bound >>> 31);
+    }
+
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    /**
+     * Derives a reproducible seed for a roll
+     * @param sequence distinguishes a player's successive rolls in the same chunk
+     */
+    public static long seedFor(long worldSeed, int chunkX, int chunkZ, UUID player, int rollType, long sequence) {
+        long seed = mix(worldSeed ^ rollType * GOLDEN_GAMMA);
+        seed = mix(seed ^ (((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL)));
+        seed = mix(seed ^ player.getMostSignificantBits());
+        seed = mix(seed ^ player.getLeastSignificantBits());
+        return mix(seed ^ sequence);
+    }
+
+    /**
+     * SplitMix64 finalizer
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
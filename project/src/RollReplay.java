@@ -0,0 +1,198 @@
+package com.fallengod.testament.services;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+
+import org.yaml.snakeyaml.Yaml;
+
+import com.fallengod.testament.data.GodTypes;
+
+/**
+ * Offline replay of fragment rolls dumped with /fragment stats dump
+ *
+ *   java -cp FallenGodTestament.jar:snakeyaml.jar com.fallengod.testament.services.RollReplay
+ *       <config.yml> <rolls.csv>
+ *
+ * Re-derives every draw of each recorded roll from its seed and recorded
+ * inputs, in the same order as FragmentSpawningService: the chance, the
+ * rarity gates, the god and the fragment number. The fragment weights come
+ * from the config the rolls were made with. Prints every row whose replay
+ * differs from what was recorded.
+ */
+public final class RollReplay {
+
+    public static final String CSV_HEADER = "time,type,player,seed,chance,passed,dimension,y,flags,god,owned_mask,fragment";
+
+    private RollReplay() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: RollReplay <config.yml> <rolls.csv>");
+            System.exit(2);
+            return;
+        }
+
+        try {
+            AliasSampler[] fragmentNumbers;
+            try (Reader reader = new InputStreamReader(new FileInputStream(args[0]), StandardCharsets.UTF_8)) {
+                Object root = new Yaml().load(reader);
+                fragmentNumbers = FragmentSimulator.Rules.fromConfig(
+                    root instanceof Map ? (Map<?, ?>) root : Collections.emptyMap()).fragmentNumberSamplers();
+            }
+
+            int rows = 0;
+            int differing = 0;
+            try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+                String line = reader.readLine();
+                if (line == null || !line.equals(CSV_HEADER)) {
+                    throw new IOException("Expected a roll dump starting with: " + CSV_HEADER);
+                }
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    rows++;
+                    RollHistory.Entry entry = fromCsv(line);
+                    Outcome outcome = replay(entry, fragmentNumbers);
+                    if (!outcome.matches(entry)) {
+                        differing++;
+                        System.out.println("Row " + rows + " (seed " + Long.toHexString(entry.getSeed()) + "): recorded "
+                            + describe(entry.isPassed(), entry.getGodIndex(), entry.getFragmentNumber()) + ", replayed "
+                            + describe(outcome.isPassed(), outcome.getGodIndex(), outcome.getFragmentNumber()));
+                    }
+                }
+            }
+            System.out.println("Replayed " + rows + " roll(s): " + (rows - differing) + " matched, " + differing + " differ");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Re-derives one recorded roll
+     * @param fragmentNumbers samplers compiled from the config the roll was made with
+     */
+    public static Outcome replay(RollHistory.Entry entry, AliasSampler[] fragmentNumbers) {
+        RollRandom rolls = new RollRandom();
+        rolls.reset(entry.getSeed());
+
+        boolean passed;
+        int godIndex = -1;
+        if (entry.getType() == RollHistory.Type.CHEST) {
+            passed = rolls.nextDouble() <= entry.getChance()
+                && !entry.hasFlag(RollHistory.LOCATION_BLOCKED)
+                && rolls.nextDouble() <= FragmentChances.CHEST_RARITY_GATE;
+            if (passed) {
+                godIndex = GodTypes.indexOf(FragmentChances.chestGod(entry.getDimension(), entry.getY(), rolls));
+            }
+        } else {
+            passed = rolls.nextDouble() <= entry.getChance()
+                && !entry.hasFlag(RollHistory.ON_COOLDOWN)
+                && (entry.hasFlag(RollHistory.BOSS) || rolls.nextDouble() < FragmentChances.MOB_RARITY_GATE);
+            if (passed && entry.hasFlag(RollHistory.RANDOM_GOD)) {
+                passed = rolls.nextDouble() <= FragmentChances.RANDOM_GOD_GATE;
+                if (passed) {
+                    godIndex = rolls.nextInt(GodTypes.COUNT);
+                }
+            } else if (passed) {
+                // The mob's own god is an input, not a draw
+                godIndex = entry.getGodIndex();
+            }
+        }
+
+        int fragmentNumber = 0;
+        if (passed && godIndex >= 0) {
+            int mask = entry.getOwnedMask() & (fragmentNumbers.length - 1);
+            fragmentNumber = fragmentNumbers[mask].sample(rolls.nextDouble()) + 1;
+        }
+        return new Outcome(passed, godIndex, fragmentNumber);
+    }
+
+    /**
+     * Formats a roll as a row under CSV_HEADER
+     */
+    public static String toCsv(RollHistory.Entry entry) {
+        return entry.getTime() + "," + entry.getType() + "," + entry.getPlayer() + ","
+            + Long.toHexString(entry.getSeed()) + "," + entry.getChance() + "," + entry.isPassed() + ","
+            + entry.getDimension() + "," + entry.getY() + "," + entry.getFlags() + ","
+            + (entry.getGodIndex() >= 0 ? GodTypes.nameOf(entry.getGodIndex()) : "") + ","
+            + entry.getOwnedMask() + "," + entry.getFragmentNumber();
+    }
+
+    /**
+     * Parses a row written by toCsv
+     * @throws IllegalArgumentException if the row is malformed
+     */
+    public static RollHistory.Entry fromCsv(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 12) {
+            throw new IllegalArgumentException("Expected 12 fields, got " + fields.length + ": " + line);
+        }
+        int godIndex = fields[9].isEmpty() ? -1 : GodTypes.indexOf(fields[9]);
+        return new RollHistory.Entry(Long.parseLong(fields[0]), RollHistory.Type.valueOf(fields[1]),
+            Long.parseUnsignedLong(fields[3], 16), UUID.fromString(fields[2]), Double.parseDouble(fields[4]),
+            Boolean.parseBoolean(fields[5]), Integer.parseInt(fields[8]), Integer.parseInt(fields[6]),
+            Integer.parseInt(fields[7]), godIndex, Integer.parseInt(fields[10]), Integer.parseInt(fields[11]));
+    }
+
+    private static String describe(boolean passed, int godIndex, int fragmentNumber) {
+        if (!passed) {
+            return "missed";
+        }
+        return godIndex >= 0 ? "passed " + GodTypes.nameOf(godIndex) + " " + fragmentNumber : "passed";
+    }
+
+    /**
+     * What a replayed roll drew
+     */
+    public static final class Outcome {
+        private final boolean passed;
+        private final int godIndex;
+        private final int fragmentNumber;
+
+        Outcome(boolean passed, int godIndex, int fragmentNumber) {
+            this.passed = passed;
+            this.godIndex = godIndex;
+            this.fragmentNumber = fragmentNumber;
+        }
+
+        public boolean isPassed() {
+            return passed;
+        }
+
+        /**
+         * Gets the GodTypes index drawn or used, -1 if the roll missed
+         */
+        public int getGodIndex() {
+            return godIndex;
+        }
+
+        /**
+         * Gets the fragment number drawn (1-7), 0 if the roll missed
+         */
+        public int getFragmentNumber() {
+            return fragmentNumber;
+        }
+
+        /**
+         * Checks the replay against a record; the fragment is only compared if one was recorded
+         */
+        public boolean matches(RollHistory.Entry entry) {
+            if (passed != entry.isPassed()) {
+                return false;
+            }
+            return entry.getGodIndex() < 0 || (godIndex == entry.getGodIndex() && fragmentNumber == entry.getFragmentNumber());
+        }
+    }
+}
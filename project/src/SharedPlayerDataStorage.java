@@ -0,0 +1,166 @@
+package com.fallengod.testament.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Storage wrapper for several servers sharing one backend
+ *
+ * Each record carries a version. A write is a compare-and-set: if the stored
+ * version still matches the one this server loaded, the record is replaced;
+ * otherwise another server wrote in between and both sides are merged
+ * (union of fragments and completions) before writing. Only the check and
+ * write of a single player happen under a file lock, so servers never block
+ * each other on unrelated players.
+ */
+public class SharedPlayerDataStorage implements PlayerDataStorage {
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final int LOCK_STRIPES = 256;
+
+    /**
+     * Told about every record written, so in-memory progress can pick up merged changes
+     */
+    public interface WriteListener {
+        void onWritten(PlayerProgressSnapshot written);
+    }
+
+    private final PlayerDataStorage delegate;
+    private final File lockFolder;
+    private final Logger logger;
+    private volatile WriteListener writeListener;
+
+    public SharedPlayerDataStorage(PlayerDataStorage delegate, File lockFolder, Logger logger) {
+        this.delegate = delegate;
+        this.lockFolder = lockFolder;
+        this.logger = logger;
+    }
+
+    public void setWriteListener(WriteListener writeListener) {
+        this.writeListener = writeListener;
+    }
+
+    @Override
+    public PlayerProgressSnapshot load(UUID uuid) throws IOException {
+        return delegate.load(uuid);
+    }
+
+    @Override
+    public void write(PlayerProgressSnapshot snapshot) throws IOException {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            PlayerProgressSnapshot stored = delegate.load(snapshot.getUuid());
+            long storedVersion = stored != null ? stored.getVersion() : 0L;
+
+            // Up to date with the stored record, so ours replaces it as is (removals included)
+            PlayerProgressSnapshot next = stored == null || storedVersion == snapshot.getVersion()
+                ? snapshot
+                : merge(snapshot, stored);
+            next = next.withVersion(storedVersion + 1);
+
+            if (compareAndWrite(next, storedVersion)) {
+                WriteListener listener = writeListener;
+                if (listener != null) {
+                    listener.onWritten(next);
+                }
+                return;
+            }
+        }
+        throw new IOException("Progress for " + snapshot.getUuid() + " kept changing, gave up after " + MAX_ATTEMPTS + " attempts");
+    }
+
+    @Override
+    public void writeAll(List<PlayerProgressSnapshot> snapshots) throws IOException {
+        // Each player is its own compare-and-set
+        IOException failure = null;
+        for (PlayerProgressSnapshot snapshot : snapshots) {
+            try {
+                write(snapshot);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public Set<UUID> listPlayers() throws IOException {
+        return delegate.listPlayers();
+    }
+
+    @Override
+    public boolean hasAnyPlayer() throws IOException {
+        return delegate.hasAnyPlayer();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    /**
+     * Merges two diverged copies of a player's progress
+     * Fragments and completions are unioned, except that a god completed on only
+     * one side takes that side's fragments, since completing clears them.
+     * Counters take the higher value; they only feed spawn chances, so
+     * undercounting concurrent activity on two servers is acceptable
+     */
+    static PlayerProgressSnapshot merge(PlayerProgressSnapshot ours, PlayerProgressSnapshot theirs) {
+        byte[] masks = new byte[GodTypes.COUNT];
+        for (int godIndex = 0; godIndex < GodTypes.COUNT; godIndex++) {
+            boolean oursCompleted = ours.isTestamentCompleted(godIndex);
+            boolean theirsCompleted = theirs.isTestamentCompleted(godIndex);
+            int mask;
+            if (oursCompleted == theirsCompleted) {
+                mask = ours.getFragmentMask(godIndex) | theirs.getFragmentMask(godIndex);
+            } else {
+                mask = oursCompleted ? ours.getFragmentMask(godIndex) : theirs.getFragmentMask(godIndex);
+            }
+            masks[godIndex] = (byte) mask;
+        }
+        int completed = ours.getCompletedMask() | theirs.getCompletedMask();
+        int[] counters = new int[ProgressCounters.COUNT];
+        for (int counterIndex = 0; counterIndex < ProgressCounters.COUNT; counterIndex++) {
+            counters[counterIndex] = Math.max(ours.getCounter(counterIndex), theirs.getCounter(counterIndex));
+        }
+        return new PlayerProgressSnapshot(ours.getUuid(), masks, completed, counters, theirs.getVersion());
+    }
+
+    /**
+     * Writes the record if the stored version is still the expected one
+     */
+    private synchronized boolean compareAndWrite(PlayerProgressSnapshot next, long expectedVersion) throws IOException {
+        if (!lockFolder.exists()) {
+            lockFolder.mkdirs();
+        }
+
+        UUID uuid = next.getUuid();
+        int stripe = (uuid.hashCode() & 0x7FFFFFFF) % LOCK_STRIPES;
+        File lockFile = new File(lockFolder, "stripe-" + stripe + ".lock");
+        try (FileChannel channel = FileChannel.open(lockFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = channel.lock()) {
+            PlayerProgressSnapshot current = delegate.load(uuid);
+            long currentVersion = current != null ? current.getVersion() : 0L;
+            if (currentVersion != expectedVersion) {
+                logger.fine("Progress for " + uuid + " changed on another server, merging again");
+                return false;
+            }
+            delegate.write(next);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.fallengod.testament.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * How the simulated players of FragmentSimulator behave
+ *
+ * Read from a properties file; every key is optional:
+ *
+ *   players=10000                 simulated players
+ *   hours=500                     play time simulated per player
+ *   seed=1                        same seed and inputs give the same results
+ *   chest.opens_per_hour=30
+ *   chest.container=CHEST         container material, for its drop table multiplier
+ *   chest.dimension.nether=0.2    share of chests per dimension (overworld, nether, the_end)
+ *   chest.height.-40=0.15         share of overworld chests per height
+ *   mob.BLAZE.nether=3            kills per hour of a mob in a dimension
+ */
+public final class SimulationProfile {
+
+    private static final String[] DIMENSIONS = {"overworld", "nether", "the_end"};
+
+    /**
+     * Kills of one mob type in one dimension
+     */
+    public static final class MobActivity {
+        private final String mob;
+        private final int dimension;
+        private final double killsPerHour;
+
+        MobActivity(String mob, int dimension, double killsPerHour) {
+            this.mob = mob;
+            this.dimension = dimension;
+            this.killsPerHour = killsPerHour;
+        }
+
+        public String getMob() {
+            return mob;
+        }
+
+        public int getDimension() {
+            return dimension;
+        }
+
+        public double getKillsPerHour() {
+            return killsPerHour;
+        }
+    }
+
+    private final int players;
+    private final double hours;
+    private final long seed;
+    private final double chestOpensPerHour;
+    private final String chestContainer;
+    // Indexed by FragmentChances dimension
+    private final double[] chestDimensionWeights;
+    private final int[] chestHeights;
+    private final double[] chestHeightWeights;
+    private final List<MobActivity> mobActivities;
+
+    private SimulationProfile(int players, double hours, long seed, double chestOpensPerHour, String chestContainer,
+                              double[] chestDimensionWeights, int[] chestHeights, double[] chestHeightWeights,
+                              List<MobActivity> mobActivities) {
+        this.players = players;
+        this.hours = hours;
+        this.seed = seed;
+        this.chestOpensPerHour = chestOpensPerHour;
+        this.chestContainer = chestContainer;
+        this.chestDimensionWeights = chestDimensionWeights;
+        this.chestHeights = chestHeights;
+        this.chestHeightWeights = chestHeightWeights;
+        this.mobActivities = mobActivities;
+    }
+
+    /**
+     * Reads a profile, filling in defaults for anything not set
+     * @throws IllegalArgumentException if a value is not a valid number or dimension
+     */
+    public static SimulationProfile load(Properties properties) {
+        int players = (int) number(properties, "players", 10000);
+        double hours = number(properties, "hours", 500);
+        long seed = (long) number(properties, "seed", 1);
+        double chestOpensPerHour = number(properties, "chest.opens_per_hour", 30);
+        String chestContainer = properties.getProperty("chest.container", "CHEST").trim().toUpperCase();
+        if (players < 1 || !(hours > 0) || chestOpensPerHour < 0) {
+            throw new IllegalArgumentException("players and hours must be positive, chest.opens_per_hour not negative");
+        }
+
+        double[] dimensionWeights = {0.7, 0.2, 0.1, 0};
+        if (hasPrefix(properties, "chest.dimension.")) {
+            dimensionWeights = new double[4];
+            for (int dimension = 0; dimension < DIMENSIONS.length; dimension++) {
+                dimensionWeights[dimension] = number(properties, "chest.dimension." + DIMENSIONS[dimension], 0);
+            }
+        }
+
+        List<Integer> heights = new ArrayList<>();
+        List<Double> heightWeights = new ArrayList<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith("chest.height.")) {
+                heights.add(Integer.parseInt(key.substring("chest.height.".length()).trim()));
+                heightWeights.add(number(properties, key, 0));
+            }
+        }
+        if (heights.isEmpty()) {
+            heights.addAll(List.of(-40, 10, 64, 120));
+            heightWeights.addAll(List.of(0.15, 0.35, 0.4, 0.1));
+        }
+
+        List<MobActivity> mobActivities = new ArrayList<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.startsWith("mob.")) {
+                continue;
+            }
+            int split = key.lastIndexOf('.');
+            String mob = key.substring("mob.".length(), Math.max(split, "mob.".length())).toUpperCase();
+            int dimension = dimensionOf(key.substring(split + 1));
+            if (mob.isEmpty() || dimension < 0) {
+                throw new IllegalArgumentException("Expected mob.<MOB>.<overworld|nether|the_end>, got " + key);
+            }
+            mobActivities.add(new MobActivity(mob, dimension, number(properties, key, 0)));
+        }
+        if (mobActivities.isEmpty()) {
+            mobActivities.add(new MobActivity("ZOMBIE", FragmentChances.OVERWORLD, 12));
+            mobActivities.add(new MobActivity("SKELETON", FragmentChances.OVERWORLD, 10));
+            mobActivities.add(new MobActivity("CREEPER", FragmentChances.OVERWORLD, 6));
+            mobActivities.add(new MobActivity("SPIDER", FragmentChances.OVERWORLD, 6));
+            mobActivities.add(new MobActivity("ENDERMAN", FragmentChances.OVERWORLD, 2));
+            mobActivities.add(new MobActivity("DROWNED", FragmentChances.OVERWORLD, 2));
+            mobActivities.add(new MobActivity("BLAZE", FragmentChances.NETHER, 3));
+            mobActivities.add(new MobActivity("WITHER_SKELETON", FragmentChances.NETHER, 2));
+            mobActivities.add(new MobActivity("ZOMBIFIED_PIGLIN", FragmentChances.NETHER, 4));
+            mobActivities.add(new MobActivity("ENDERMAN", FragmentChances.THE_END, 4));
+        }
+
+        return new SimulationProfile(players, hours, seed, chestOpensPerHour, chestContainer, dimensionWeights,
+            heights.stream().mapToInt(Integer::intValue).toArray(),
+            heightWeights.stream().mapToDouble(Double::doubleValue).toArray(), mobActivities);
+    }
+
+    public int getPlayers() {
+        return players;
+    }
+
+    public double getHours() {
+        return hours;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public double getChestOpensPerHour() {
+        return chestOpensPerHour;
+    }
+
+    public String getChestContainer() {
+        return chestContainer;
+    }
+
+    /**
+     * Gets the share of chests per FragmentChances dimension
+     */
+    public double[] getChestDimensionWeights() {
+        return chestDimensionWeights.clone();
+    }
+
+    public int[] getChestHeights() {
+        return chestHeights.clone();
+    }
+
+    public double[] getChestHeightWeights() {
+        return chestHeightWeights.clone();
+    }
+
+    public List<MobActivity> getMobActivities() {
+        return mobActivities;
+    }
+
+    /**
+     * Maps a dimension name to a FragmentChances dimension, -1 if unknown
+     */
+    static int dimensionOf(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "overworld":
+            case "normal":
+                return FragmentChances.OVERWORLD;
+            case "nether":
+                return FragmentChances.NETHER;
+            case "end":
+            case "the_end":
+                return FragmentChances.THE_END;
+            default:
+                return -1;
+        }
+    }
+
+    private static boolean hasPrefix(Properties properties, String prefix) {
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double number(Properties properties, String key, double defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + key + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.fallengod.testament.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid of recent fragment spawn points, one grid per world
+ *
+ * Cells are as wide as the spawn distance rule, so "any spawn within R" only
+ * needs the 3x3 cells around a point. Points expire in the order they were
+ * added, so eviction pops from the front of a queue instead of sweeping
+ * every entry. Not thread-safe on its own; callers synchronize on it.
+ */
+class SpawnPointIndex {
+
+    private static final class SpawnPoint {
+        final String world;
+        final long cell;
+        final int x;
+        final int z;
+        final long time;
+
+        SpawnPoint(String world, long cell, int x, int z, long time) {
+            this.world = world;
+            this.cell = cell;
+            this.x = x;
+            this.z = z;
+            this.time = time;
+        }
+    }
+
+    private final int cellSize;
+    private final long retentionMillis;
+    // world -> cell key -> points in that cell
+    private final Map<String, Map<Long, List<SpawnPoint>>> grids = new HashMap<>();
+    // All points, oldest first
+    private final Deque<SpawnPoint> byAge = new ArrayDeque<>();
+
+    SpawnPointIndex(int cellSize, long retentionMillis) {
+        this.cellSize = Math.max(1, cellSize);
+        this.retentionMillis = retentionMillis;
+    }
+
+    /**
+     * Records a spawn at the given block column
+     */
+    void add(String world, int x, int z, long time) {
+        evictExpired(time);
+        long cell = cellKey(Math.floorDiv(x, cellSize), Math.floorDiv(z, cellSize));
+        SpawnPoint point = new SpawnPoint(world, cell, x, z, time);
+        grids.computeIfAbsent(world, k -> new HashMap<>())
+            .computeIfAbsent(cell, k -> new ArrayList<>(2))
+            .add(point);
+        byAge.addLast(point);
+    }
+
+    /**
+     * Checks for a remembered spawn closer than the radius
+     * The radius must not exceed the cell size
+     */
+    boolean hasSpawnWithin(String world, int x, int z, int radius, long now) {
+        evictExpired(now);
+        Map<Long, List<SpawnPoint>> grid = grids.get(world);
+        if (grid == null) {
+            return false;
+        }
+
+        long radiusSquared = (long) radius * radius;
+        int cellX = Math.floorDiv(x, cellSize);
+        int cellZ = Math.floorDiv(z, cellSize);
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                List<SpawnPoint> points = grid.get(cellKey(cellX + dx, cellZ + dz));
+                if (points == null) {
+                    continue;
+                }
+                for (SpawnPoint point : points) {
+                    long distX = point.x - x;
+                    long distZ = point.z - z;
+                    if (distX * distX + distZ * distZ < radiusSquared) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    int size() {
+        return byAge.size();
+    }
+
+    void clear() {
+        grids.clear();
+        byAge.clear();
+    }
+
+    private void evictExpired(long now) {
+        long cutoff = now - retentionMillis;
+        while (!byAge.isEmpty() && byAge.peekFirst().time < cutoff) {
+            SpawnPoint point = byAge.pollFirst();
+            Map<Long, List<SpawnPoint>> grid = grids.get(point.world);
+            if (grid == null) {
+                continue;
+            }
+            List<SpawnPoint> points = grid.get(point.cell);
+            if (points != null) {
+                points.remove(point);
+                if (points.isEmpty()) {
+                    grid.remove(point.cell);
+                }
+            }
+            if (grid.isEmpty()) {
+                grids.remove(point.world);
+            }
+        }
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,345 @@
+package com.fallengod.testament.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Stores progress in an embedded SQLite database (progress.db)
+ * Lookups go through the (uuid, god) primary keys, so loading one offline
+ * player stays cheap no matter how many players are stored.
+ */
+public class SqlPlayerDataStorage implements PlayerDataStorage {
+
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS player_versions ("
+            + "uuid TEXT NOT NULL PRIMARY KEY, version INTEGER NOT NULL)",
+        "CREATE TABLE IF NOT EXISTS player_fragments ("
+            + "uuid TEXT NOT NULL, god TEXT NOT NULL, bitmask INTEGER NOT NULL, "
+            + "PRIMARY KEY (uuid, god))",
+        "CREATE TABLE IF NOT EXISTS completions ("
+            + "uuid TEXT NOT NULL, god TEXT NOT NULL, completed_at INTEGER NOT NULL, "
+            + "PRIMARY KEY (uuid, god))",
+        "CREATE TABLE IF NOT EXISTS player_counters ("
+            + "uuid TEXT NOT NULL, counter TEXT NOT NULL, value INTEGER NOT NULL, "
+            + "PRIMARY KEY (uuid, counter))"
+    };
+
+    // Players read per lock hold when visiting every stored player
+    private static final int PAGE_SIZE = 500;
+
+    private final File databaseFile;
+    private final Logger logger;
+    // Single connection shared by the writer and loaders (guarded by this)
+    private Connection connection;
+
+    public SqlPlayerDataStorage(File databaseFile, Logger logger) {
+        this.databaseFile = databaseFile;
+        this.logger = logger;
+    }
+
+    @Override
+    public synchronized PlayerProgressSnapshot load(UUID uuid) throws IOException {
+        try {
+            Connection db = getConnection();
+            String id = uuid.toString();
+            byte[] fragmentMasks = new byte[GodTypes.COUNT];
+            int completedMask = 0;
+            int[] counters = new int[ProgressCounters.COUNT];
+            long version = 0L;
+            boolean found = false;
+
+            try (PreparedStatement select = db.prepareStatement(
+                    "SELECT version FROM player_versions WHERE uuid = ?")) {
+                select.setString(1, id);
+                try (ResultSet rows = select.executeQuery()) {
+                    if (rows.next()) {
+                        found = true;
+                        version = rows.getLong(1);
+                    }
+                }
+            }
+
+            try (PreparedStatement select = db.prepareStatement(
+                    "SELECT god, bitmask FROM player_fragments WHERE uuid = ?")) {
+                select.setString(1, id);
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        found = true;
+                        int godIndex = GodTypes.indexOf(rows.getString(1));
+                        if (godIndex >= 0) {
+                            fragmentMasks[godIndex] = (byte) rows.getInt(2);
+                        }
+                    }
+                }
+            }
+
+            try (PreparedStatement select = db.prepareStatement(
+                    "SELECT god FROM completions WHERE uuid = ?")) {
+                select.setString(1, id);
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        found = true;
+                        int godIndex = GodTypes.indexOf(rows.getString(1));
+                        if (godIndex >= 0) {
+                            completedMask |= 1 << godIndex;
+                        }
+                    }
+                }
+            }
+
+            try (PreparedStatement select = db.prepareStatement(
+                    "SELECT counter, value FROM player_counters WHERE uuid = ?")) {
+                select.setString(1, id);
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        int counterIndex = ProgressCounters.resolve(rows.getString(1));
+                        if (counterIndex >= 0) {
+                            counters[counterIndex] = rows.getInt(2);
+                        }
+                    }
+                }
+            }
+
+            return found ? new PlayerProgressSnapshot(uuid, fragmentMasks, completedMask, counters, version) : null;
+        } catch (SQLException e) {
+            throw new IOException("Failed to load progress for " + uuid, e);
+        }
+    }
+
+    @Override
+    public void write(PlayerProgressSnapshot snapshot) throws IOException {
+        writeAll(Collections.singletonList(snapshot));
+    }
+
+    /**
+     * Upserts all snapshots as one batched transaction
+     */
+    @Override
+    public synchronized void writeAll(List<PlayerProgressSnapshot> snapshots) throws IOException {
+        try {
+            Connection db = getConnection();
+            db.setAutoCommit(false);
+            try (PreparedStatement upsertVersion = db.prepareStatement(
+                    "INSERT INTO player_versions (uuid, version) VALUES (?, ?) "
+                        + "ON CONFLICT (uuid) DO UPDATE SET version = excluded.version");
+                 PreparedStatement upsertFragments = db.prepareStatement(
+                    "INSERT INTO player_fragments (uuid, god, bitmask) VALUES (?, ?, ?) "
+                        + "ON CONFLICT (uuid, god) DO UPDATE SET bitmask = excluded.bitmask");
+                 PreparedStatement deleteFragments = db.prepareStatement(
+                    "DELETE FROM player_fragments WHERE uuid = ? AND god = ?");
+                 PreparedStatement insertCompletion = db.prepareStatement(
+                    "INSERT OR IGNORE INTO completions (uuid, god, completed_at) VALUES (?, ?, ?)");
+                 PreparedStatement deleteCompletion = db.prepareStatement(
+                    "DELETE FROM completions WHERE uuid = ? AND god = ?");
+                 PreparedStatement upsertCounter = db.prepareStatement(
+                    "INSERT INTO player_counters (uuid, counter, value) VALUES (?, ?, ?) "
+                        + "ON CONFLICT (uuid, counter) DO UPDATE SET value = excluded.value");
+                 PreparedStatement deleteCounter = db.prepareStatement(
+                    "DELETE FROM player_counters WHERE uuid = ? AND counter = ?")) {
+
+                long now = System.currentTimeMillis();
+                for (PlayerProgressSnapshot snapshot : snapshots) {
+                    String id = snapshot.getUuid().toString();
+                    upsertVersion.setString(1, id);
+                    upsertVersion.setLong(2, snapshot.getVersion());
+                    upsertVersion.addBatch();
+                    for (int godIndex = 0; godIndex < GodTypes.COUNT; godIndex++) {
+                        String god = GodTypes.nameOf(godIndex);
+                        int mask = snapshot.getFragmentMask(godIndex);
+                        if (mask != 0) {
+                            upsertFragments.setString(1, id);
+                            upsertFragments.setString(2, god);
+                            upsertFragments.setInt(3, mask);
+                            upsertFragments.addBatch();
+                        } else {
+                            deleteFragments.setString(1, id);
+                            deleteFragments.setString(2, god);
+                            deleteFragments.addBatch();
+                        }
+
+                        if (snapshot.isTestamentCompleted(godIndex)) {
+                            // Keeps the original completion time
+                            insertCompletion.setString(1, id);
+                            insertCompletion.setString(2, god);
+                            insertCompletion.setLong(3, now);
+                            insertCompletion.addBatch();
+                        } else {
+                            deleteCompletion.setString(1, id);
+                            deleteCompletion.setString(2, god);
+                            deleteCompletion.addBatch();
+                        }
+                    }
+                    for (int counterIndex = 0; counterIndex < ProgressCounters.COUNT; counterIndex++) {
+                        String counter = ProgressCounters.nameOf(counterIndex);
+                        int value = snapshot.getCounter(counterIndex);
+                        if (counter == null) {
+                            // Unused registered slot
+                            continue;
+                        }
+                        if (value != 0) {
+                            upsertCounter.setString(1, id);
+                            upsertCounter.setString(2, counter);
+                            upsertCounter.setInt(3, value);
+                            upsertCounter.addBatch();
+                        } else {
+                            // Counters can be reset (fragment pity), so drop the stale row
+                            deleteCounter.setString(1, id);
+                            deleteCounter.setString(2, counter);
+                            deleteCounter.addBatch();
+                        }
+                    }
+                }
+
+                upsertVersion.executeBatch();
+                upsertFragments.executeBatch();
+                deleteFragments.executeBatch();
+                insertCompletion.executeBatch();
+                deleteCompletion.executeBatch();
+                upsertCounter.executeBatch();
+                deleteCounter.executeBatch();
+                db.commit();
+            } catch (SQLException e) {
+                db.rollback();
+                throw e;
+            } finally {
+                db.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to write progress for " + snapshots.size() + " player(s)", e);
+        }
+    }
+
+    @Override
+    public synchronized Set<UUID> listPlayers() throws IOException {
+        Set<UUID> players = new HashSet<>();
+        try (Statement statement = getConnection().createStatement();
+             ResultSet rows = statement.executeQuery(
+                 "SELECT uuid FROM player_versions UNION SELECT uuid FROM player_fragments "
+                     + "UNION SELECT uuid FROM completions")) {
+            while (rows.next()) {
+                String id = rows.getString(1);
+                try {
+                    players.add(UUID.fromString(id));
+                } catch (IllegalArgumentException e) {
+                    logger.warning("Skipping unrecognised progress row: " + id);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to list stored players", e);
+        }
+        return players;
+    }
+
+    @Override
+    public synchronized boolean hasAnyPlayer() throws IOException {
+        try (Statement statement = getConnection().createStatement();
+             ResultSet rows = statement.executeQuery(
+                 "SELECT EXISTS (SELECT 1 FROM player_versions) OR EXISTS (SELECT 1 FROM player_fragments) "
+                     + "OR EXISTS (SELECT 1 FROM completions)")) {
+            return rows.next() && rows.getBoolean(1);
+        } catch (SQLException e) {
+            throw new IOException("Failed to check for stored players", e);
+        }
+    }
+
+    /**
+     * Visits stored players a page at a time, ordered by uuid
+     * The lock is only held while a page is read, so exports do not stall
+     * the save writer or offline loads on the main thread
+     */
+    @Override
+    public void forEachPlayer(PlayerVisitor visitor) throws IOException {
+        String after = "";
+        while (true) {
+            List<String> page = readPlayerPage(after);
+            for (String id : page) {
+                UUID uuid;
+                try {
+                    uuid = UUID.fromString(id);
+                } catch (IllegalArgumentException e) {
+                    logger.warning("Skipping unrecognised progress row: " + id);
+                    continue;
+                }
+                visitor.visit(uuid);
+            }
+            if (page.size() < PAGE_SIZE) {
+                return;
+            }
+            after = page.get(page.size() - 1);
+        }
+    }
+
+    /**
+     * Reads the next page of stored player ids after the given one
+     */
+    private synchronized List<String> readPlayerPage(String after) throws IOException {
+        List<String> page = new ArrayList<>(PAGE_SIZE);
+        try (PreparedStatement select = getConnection().prepareStatement(
+                "SELECT uuid FROM (SELECT uuid FROM player_versions UNION SELECT uuid FROM player_fragments "
+                    + "UNION SELECT uuid FROM completions) WHERE uuid > ? ORDER BY uuid LIMIT ?")) {
+            select.setString(1, after);
+            select.setInt(2, PAGE_SIZE);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    page.add(rows.getString(1));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to list stored players", e);
+        }
+        return page;
+    }
+
+    @Override
+    public String getName() {
+        return "sql";
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException("Failed to close progress database", e);
+        } finally {
+            connection = null;
+        }
+    }
+
+    private Connection getConnection() throws SQLException {
+        if (connection != null && !connection.isClosed()) {
+            return connection;
+        }
+
+        File folder = databaseFile.getParentFile();
+        if (folder != null && !folder.exists()) {
+            folder.mkdirs();
+        }
+        connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            // WAL keeps commits cheap and the database consistent after a crash
+            statement.execute("PRAGMA journal_mode=WAL");
+            statement.execute("PRAGMA synchronous=NORMAL");
+            for (String table : SCHEMA) {
+                statement.execute(table);
+            }
+        }
+        return connection;
+    }
+}
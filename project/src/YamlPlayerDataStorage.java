@@ -0,0 +1,127 @@
+package com.fallengod.testament.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+/**
+ * Stores each player as a human-readable YAML file
+ */
+public class YamlPlayerDataStorage extends FilePlayerDataStorage {
+
+    private final Yaml yaml;
+
+    public YamlPlayerDataStorage(File folder, Logger logger) {
+        super(folder, ".yml", logger);
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        this.yaml = new Yaml(options);
+    }
+
+    @Override
+    protected byte[] encode(PlayerProgressSnapshot snapshot) {
+        Map<String, Object> playerMap = new HashMap<>();
+        // Save fragments as godType -> list of fragment numbers
+        Map<String, Object> fragmentsOut = new HashMap<>();
+        List<String> completed = new ArrayList<>();
+        for (int godIndex = 0; godIndex < GodTypes.COUNT; godIndex++) {
+            int mask = snapshot.getFragmentMask(godIndex);
+            if (mask != 0) {
+                List<Integer> numbers = new ArrayList<>();
+                for (int bit = 0; bit < 7; bit++) {
+                    if ((mask & (1 << bit)) != 0) {
+                        numbers.add(bit + 1);
+                    }
+                }
+                fragmentsOut.put(GodTypes.nameOf(godIndex), numbers);
+            }
+            if (snapshot.isTestamentCompleted(godIndex)) {
+                completed.add(GodTypes.nameOf(godIndex));
+            }
+        }
+        // Save non-zero counters as name -> value
+        Map<String, Object> countersOut = new HashMap<>();
+        for (int counterIndex = 0; counterIndex < ProgressCounters.COUNT; counterIndex++) {
+            int value = snapshot.getCounter(counterIndex);
+            String name = ProgressCounters.nameOf(counterIndex);
+            if (value != 0 && name != null) {
+                countersOut.put(name, value);
+            }
+        }
+        playerMap.put("fragments", fragmentsOut);
+        playerMap.put("completed", completed);
+        playerMap.put("counters", countersOut);
+        playerMap.put("version", snapshot.getVersion());
+        return yaml.dump(playerMap).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    protected PlayerProgressSnapshot decode(UUID uuid, byte[] data) throws IOException {
+        Object obj = yaml.load(new String(data, StandardCharsets.UTF_8));
+        if (!(obj instanceof Map)) {
+            throw new IOException("Progress file for " + uuid + " is not a YAML map");
+        }
+        return readPlayer(uuid, (Map<?, ?>) obj);
+    }
+
+    /**
+     * Reads a player section in the YAML layout shared with the legacy progress.yml
+     */
+    static PlayerProgressSnapshot readPlayer(UUID uuid, Map<?, ?> playerMap) {
+        byte[] masks = new byte[GodTypes.COUNT];
+        int completed = 0;
+
+        if (playerMap.get("fragments") instanceof Map) {
+            Map<?, ?> fragments = (Map<?, ?>) playerMap.get("fragments");
+            for (Map.Entry<?, ?> frag : fragments.entrySet()) {
+                int godIndex = GodTypes.indexOf(frag.getKey().toString());
+                if (godIndex < 0 || !(frag.getValue() instanceof Iterable)) continue;
+                for (Object num : (Iterable<?>) frag.getValue()) {
+                    int fragmentNumber = Integer.parseInt(num.toString());
+                    if (fragmentNumber >= 1 && fragmentNumber <= 7) {
+                        masks[godIndex] |= (byte) (1 << (fragmentNumber - 1));
+                    }
+                }
+            }
+        }
+        if (playerMap.get("completed") instanceof Iterable) {
+            for (Object god : (Iterable<?>) playerMap.get("completed")) {
+                int godIndex = GodTypes.indexOf(god.toString());
+                if (godIndex >= 0) {
+                    completed |= 1 << godIndex;
+                }
+            }
+        }
+
+        int[] counters = new int[ProgressCounters.COUNT];
+        if (playerMap.get("counters") instanceof Map) {
+            for (Map.Entry<?, ?> counter : ((Map<?, ?>) playerMap.get("counters")).entrySet()) {
+                int counterIndex = ProgressCounters.resolve(counter.getKey().toString());
+                if (counterIndex >= 0 && counter.getValue() instanceof Number) {
+                    counters[counterIndex] = ((Number) counter.getValue()).intValue();
+                }
+            }
+        }
+
+        long version = 0L;
+        if (playerMap.get("version") instanceof Number) {
+            version = ((Number) playerMap.get("version")).longValue();
+        }
+
+        return new PlayerProgressSnapshot(uuid, masks, completed, counters, version);
+    }
+
+    @Override
+    public String getName() {
+        return "yaml";
+    }
+}
@@ -0,0 +1,189 @@
+package com.fallengod.testament.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class PlayerProgressCodecTest {
+
+    private static final UUID PLAYER = UUID.fromString("5b7c1f0e-2a44-4d3b-9a51-0c8e6f2d7a10");
+
+    @Test
+    void roundTripsCurrentVersion() throws IOException {
+        byte[] masks = new byte[GodTypes.COUNT];
+        masks[0] = 0b0000101;
+        masks[GodTypes.COUNT - 1] = 0x7F;
+        int[] counters = new int[ProgressCounters.COUNT];
+        counters[ProgressCounters.CHESTS_OPENED_INDEX] = 120;
+        counters[ProgressCounters.FRAGMENT_PITY_INDEX] = 7;
+        int registered = ProgressCounters.registerKills("CODEC_TEST_MOB");
+        counters[registered] = 33;
+
+        PlayerProgressSnapshot decoded = PlayerProgressCodec.decode(
+            PlayerProgressCodec.encode(new PlayerProgressSnapshot(PLAYER, masks, 0b10, counters, 42L)));
+
+        assertEquals(PLAYER, decoded.getUuid());
+        assertEquals(42L, decoded.getVersion());
+        assertEquals(0b10, decoded.getCompletedMask());
+        for (int godIndex = 0; godIndex < GodTypes.COUNT; godIndex++) {
+            assertEquals(masks[godIndex], decoded.getFragmentMask(godIndex), "mask of god " + godIndex);
+        }
+        for (int counterIndex = 0; counterIndex < ProgressCounters.COUNT; counterIndex++) {
+            assertEquals(counters[counterIndex], decoded.getCounter(counterIndex), "counter " + counterIndex);
+        }
+    }
+
+    @Test
+    void decodesVersion1() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = header(bytes, 1);
+        out.writeByte(0b1);
+        out.writeByte(1);
+        out.writeByte(2);
+        out.writeByte(0b1111111);
+
+        PlayerProgressSnapshot decoded = PlayerProgressCodec.decode(bytes.toByteArray());
+
+        assertEquals(PLAYER, decoded.getUuid());
+        assertEquals(0L, decoded.getVersion());
+        assertEquals(0b1, decoded.getCompletedMask());
+        assertEquals(0b1111111, decoded.getFragmentMask(2));
+        assertEquals(0, decoded.getCounter(ProgressCounters.CHESTS_OPENED_INDEX));
+    }
+
+    @Test
+    void decodesVersion2() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = header(bytes, 2);
+        out.writeLong(9L);
+        out.writeByte(0);
+        out.writeByte(1);
+        out.writeByte(4);
+        out.writeByte(0b11);
+
+        PlayerProgressSnapshot decoded = PlayerProgressCodec.decode(bytes.toByteArray());
+
+        assertEquals(9L, decoded.getVersion());
+        assertEquals(0b11, decoded.getFragmentMask(4));
+        assertEquals(0, decoded.getCounter(ProgressCounters.CHESTS_OPENED_INDEX));
+    }
+
+    @Test
+    void decodesVersion3() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = header(bytes, 3);
+        out.writeLong(3L);
+        out.writeByte(0);
+        out.writeByte(0);
+        out.writeByte(2);
+        out.writeByte(ProgressCounters.CHESTS_OPENED_INDEX);
+        out.writeInt(55);
+        out.writeByte(ProgressCounters.FRAGMENT_PITY_INDEX);
+        out.writeInt(4);
+
+        PlayerProgressSnapshot decoded = PlayerProgressCodec.decode(bytes.toByteArray());
+
+        assertEquals(3L, decoded.getVersion());
+        assertEquals(55, decoded.getCounter(ProgressCounters.CHESTS_OPENED_INDEX));
+        assertEquals(4, decoded.getCounter(ProgressCounters.FRAGMENT_PITY_INDEX));
+    }
+
+    @Test
+    void rejectsUnknownFormatVersion() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(PlayerProgressCodec.CURRENT_VERSION + 1);
+        assertThrows(IOException.class, () -> PlayerProgressCodec.decode(bytes.toByteArray()));
+    }
+
+    @Test
+    void skipsUnknownCounterIndexes() throws IOException {
+        // A registered slot index and one past every slot, as a newer build could write
+        int registeredSlot = ProgressCounters.BUILT_IN_COUNT;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = header(bytes, 3);
+        out.writeLong(1L);
+        out.writeByte(0);
+        out.writeByte(0);
+        out.writeByte(3);
+        out.writeByte(registeredSlot);
+        out.writeInt(11);
+        out.writeByte(250);
+        out.writeInt(12);
+        out.writeByte(ProgressCounters.CHESTS_OPENED_INDEX);
+        out.writeInt(13);
+
+        PlayerProgressSnapshot decoded = PlayerProgressCodec.decode(bytes.toByteArray());
+
+        assertEquals(0, decoded.getCounter(registeredSlot));
+        assertEquals(13, decoded.getCounter(ProgressCounters.CHESTS_OPENED_INDEX));
+    }
+
+    @Test
+    void dropsRegisteredCountersBeyondTheSlots() throws IOException {
+        int names = ProgressCounters.MAX_REGISTERED + 5;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = header(bytes, 4);
+        out.writeLong(1L);
+        out.writeByte(0);
+        out.writeByte(0);
+        out.writeByte(0);
+        out.writeByte(names);
+        for (int i = 0; i < names; i++) {
+            out.writeUTF(ProgressCounters.KILLS_PREFIX + "OVERFLOW_" + i);
+            out.writeInt(i + 1);
+        }
+
+        PlayerProgressSnapshot decoded = PlayerProgressCodec.decode(bytes.toByteArray());
+
+        int dropped = 0;
+        for (int i = 0; i < names; i++) {
+            int counterIndex = ProgressCounters.indexOf(ProgressCounters.KILLS_PREFIX + "OVERFLOW_" + i);
+            if (counterIndex < 0) {
+                dropped++;
+            } else {
+                assertEquals(i + 1, decoded.getCounter(counterIndex), "counter OVERFLOW_" + i);
+            }
+        }
+        assertTrue(dropped >= 5, "expected the names past the last slot to be dropped");
+    }
+
+    @Test
+    void truncatesMasksToKnownGods() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = header(bytes, 4);
+        out.writeLong(1L);
+        out.writeByte(0xFF);
+        out.writeByte(2);
+        out.writeByte(1);
+        out.writeByte(0xFF);
+        out.writeByte(GodTypes.COUNT);
+        out.writeByte(0b1);
+        out.writeByte(0);
+        out.writeByte(0);
+
+        PlayerProgressSnapshot decoded = PlayerProgressCodec.decode(bytes.toByteArray());
+
+        assertEquals((1 << GodTypes.COUNT) - 1, decoded.getCompletedMask());
+        assertEquals(0x7F, decoded.getFragmentMask(1));
+        for (int godIndex = 0; godIndex < GodTypes.COUNT; godIndex++) {
+            if (godIndex != 1) {
+                assertEquals(0, decoded.getFragmentMask(godIndex), "mask of god " + godIndex);
+            }
+        }
+    }
+
+    private static DataOutputStream header(ByteArrayOutputStream bytes, int version) throws IOException {
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(version);
+        out.writeLong(PLAYER.getMostSignificantBits());
+        out.writeLong(PLAYER.getLeastSignificantBits());
+        return out;
+    }
+}
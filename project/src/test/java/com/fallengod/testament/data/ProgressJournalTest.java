@@ -0,0 +1,142 @@
+package com.fallengod.testament.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProgressJournalTest {
+
+    // Matches the record layout in ProgressJournal
+    private static final int RECORD_SIZE = 23;
+    // Long enough that the background sync never runs during a test
+    private static final long NO_BACKGROUND_SYNC = 600_000L;
+
+    private static final Logger LOGGER = Logger.getLogger("ProgressJournalTest");
+    private static final UUID PLAYER = UUID.fromString("0d6f3b2a-7c41-4e9a-b3d5-19f2a8c64e07");
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void replaysRecordsInOrder() throws IOException {
+        ProgressJournal journal = open();
+        journal.append(ProgressJournal.OP_ADD_FRAGMENT, PLAYER, "fallen", 1);
+        journal.append(ProgressJournal.OP_ADD_FRAGMENT, PLAYER, "veil", 7);
+        journal.append(ProgressJournal.OP_COMPLETE_TESTAMENT, PLAYER, "fallen", 0);
+        journal.close();
+
+        assertEquals(List.of("1 fallen 1", "1 veil 7", "2 fallen 0"), replay());
+    }
+
+    @Test
+    void stopsAtATornRecord() throws IOException {
+        ProgressJournal journal = open();
+        journal.append(ProgressJournal.OP_ADD_FRAGMENT, PLAYER, "fallen", 1);
+        journal.append(ProgressJournal.OP_ADD_FRAGMENT, PLAYER, "fallen", 2);
+        journal.append(ProgressJournal.OP_ADD_FRAGMENT, PLAYER, "fallen", 3);
+        journal.close();
+
+        File segment = onlySegment();
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - RECORD_SIZE / 2);
+        }
+
+        assertEquals(List.of("1 fallen 1", "1 fallen 2"), replay());
+    }
+
+    @Test
+    void stopsAtACorruptChecksum() throws IOException {
+        ProgressJournal journal = open();
+        journal.append(ProgressJournal.OP_ADD_FRAGMENT, PLAYER, "sylvan", 1);
+        journal.append(ProgressJournal.OP_ADD_FRAGMENT, PLAYER, "sylvan", 2);
+        journal.append(ProgressJournal.OP_ADD_FRAGMENT, PLAYER, "sylvan", 3);
+        journal.close();
+
+        // Last byte of the second record's CRC
+        File segment = onlySegment();
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            long position = 2L * RECORD_SIZE - 1;
+            file.seek(position);
+            int original = file.read();
+            file.seek(position);
+            file.write(original ^ 0xFF);
+        }
+
+        assertEquals(List.of("1 sylvan 1"), replay());
+    }
+
+    @Test
+    void deletesOnlyClosedSealedSegments() throws IOException {
+        ProgressJournal journal = open();
+        journal.append(ProgressJournal.OP_ADD_FRAGMENT, PLAYER, "tempest", 1);
+        long sealed = journal.rotate();
+        journal.append(ProgressJournal.OP_ADD_FRAGMENT, PLAYER, "tempest", 2);
+
+        // Not written out and closed by a sync yet, so it stays
+        journal.deleteSegmentsUpTo(sealed);
+        assertTrue(segmentFile(sealed).exists());
+
+        journal.sync();
+        assertEquals(2, segments().length);
+        journal.deleteSegmentsUpTo(sealed);
+        assertFalse(segmentFile(sealed).exists());
+        journal.close();
+
+        assertEquals(List.of("1 tempest 2"), replay());
+    }
+
+    @Test
+    void keepsRecordsOfUnsyncedSealedSegments() throws IOException {
+        ProgressJournal journal = open();
+        journal.append(ProgressJournal.OP_ADD_FRAGMENT, PLAYER, "abyssal", 1);
+        journal.rotate();
+        journal.append(ProgressJournal.OP_ADD_FRAGMENT, PLAYER, "abyssal", 2);
+        journal.rotate();
+        journal.append(ProgressJournal.OP_ADD_FRAGMENT, PLAYER, "abyssal", 3);
+        journal.close();
+
+        assertEquals(3, segments().length);
+        assertEquals(List.of("1 abyssal 1", "1 abyssal 2", "1 abyssal 3"), replay());
+    }
+
+    private ProgressJournal open() throws IOException {
+        ProgressJournal journal = new ProgressJournal(folder.toFile(), LOGGER);
+        journal.open(NO_BACKGROUND_SYNC);
+        return journal;
+    }
+
+    private List<String> replay() throws IOException {
+        List<String> records = new ArrayList<>();
+        new ProgressJournal(folder.toFile(), LOGGER).replay((op, uuid, godType, fragmentNumber) -> {
+            assertEquals(PLAYER, uuid);
+            records.add(op + " " + godType + " " + fragmentNumber);
+        });
+        return records;
+    }
+
+    private File[] segments() {
+        return folder.toFile().listFiles((dir, name) -> name.endsWith(".journal"));
+    }
+
+    private File onlySegment() {
+        File[] files = segments();
+        assertEquals(1, files.length);
+        return files[0];
+    }
+
+    private File segmentFile(long seq) {
+        return new File(folder.toFile(), "progress-" + seq + ".journal");
+    }
+}
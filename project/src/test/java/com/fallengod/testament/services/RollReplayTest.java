@@ -0,0 +1,67 @@
+package com.fallengod.testament.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.fallengod.testament.data.GodTypes;
+
+class RollReplayTest {
+
+    private static final UUID PLAYER = UUID.fromString("3e1a9c57-82b0-4f6d-a4c2-7d05b9e13f68");
+    private static final AliasSampler[] FRAGMENT_NUMBERS =
+        FragmentChances.fragmentNumberSamplers(new double[] {30, 20, 15, 13, 10, 7, 5}, 0.2);
+
+    @Test
+    void replaysPassedNetherChestRolls() {
+        RollHistory history = new RollHistory(4096);
+        RollRandom rolls = new RollRandom();
+        int passed = 0;
+        for (long seed = 1; seed <= 4096; seed++) {
+            // Drawn the way FragmentSpawningService draws a chest roll
+            rolls.reset(seed);
+            boolean rollPassed = rolls.nextDouble() <= 0.5 && rolls.nextDouble() <= FragmentChances.CHEST_RARITY_GATE;
+            history.record(RollHistory.Type.CHEST, seed, PLAYER, 0.5, FragmentChances.NETHER, 64, 0, rollPassed);
+            if (rollPassed) {
+                passed++;
+                int godIndex = GodTypes.indexOf(FragmentChances.chestGod(FragmentChances.NETHER, 64, rolls));
+                int ownedMask = (int) (seed & 0x7F);
+                history.recordFragment(godIndex, ownedMask, FRAGMENT_NUMBERS[ownedMask].sample(rolls.nextDouble()) + 1);
+            }
+        }
+        assertTrue(passed > 0);
+
+        for (RollHistory.Entry entry : history.getRecent(Integer.MAX_VALUE)) {
+            RollHistory.Entry parsed = RollReplay.fromCsv(RollReplay.toCsv(entry));
+            assertTrue(RollReplay.replay(parsed, FRAGMENT_NUMBERS).matches(parsed), "seed " + entry.getSeed());
+        }
+    }
+
+    @Test
+    void skipsDrawsForCooldownsAndBosses() {
+        RollHistory history = new RollHistory(2);
+        history.record(RollHistory.Type.MOB, 7L, PLAYER, 1.0, FragmentChances.OVERWORLD, 10, RollHistory.ON_COOLDOWN, false);
+        history.record(RollHistory.Type.MOB, 7L, PLAYER, 1.0, FragmentChances.OVERWORLD, 10, RollHistory.BOSS, true);
+        List<RollHistory.Entry> entries = history.getRecent(2);
+
+        assertFalse(RollReplay.replay(entries.get(0), FRAGMENT_NUMBERS).isPassed());
+        RollReplay.Outcome boss = RollReplay.replay(entries.get(1), FRAGMENT_NUMBERS);
+        assertTrue(boss.isPassed());
+        assertTrue(boss.matches(entries.get(1)));
+    }
+
+    @Test
+    void detectsARecordThatDoesNotReplay() {
+        RollHistory history = new RollHistory(1);
+        history.record(RollHistory.Type.CHEST, 11L, PLAYER, 0.0, FragmentChances.OVERWORLD, 10, 0, true);
+        RollHistory.Entry entry = history.getRecent(1).get(0);
+
+        assertFalse(RollReplay.replay(entry, FRAGMENT_NUMBERS).matches(entry));
+        assertEquals(entry.getSeed(), RollReplay.fromCsv(RollReplay.toCsv(entry)).getSeed());
+    }
+}
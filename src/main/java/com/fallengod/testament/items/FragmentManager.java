@@ -6,11 +6,13 @@ import java.util.List;
 import java.util.Map;
 
 import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import com.fallengod.testament.FallenGodPlugin;
+import com.fallengod.testament.data.GodTypes;
 
 /**
  * Manages the creation and validation of testament fragments
@@ -19,10 +21,12 @@ public class FragmentManager {
     
     private final Map<String, String> godColors;
     private final Map<String, String> godThemes;
+    private final NamespacedKey identityKey;
     
     public FragmentManager(FallenGodPlugin plugin) {
         this.godColors = new HashMap<>();
         this.godThemes = new HashMap<>();
+        this.identityKey = ItemIdentity.key(plugin);
         
         initializeGodData();
     }
@@ -84,6 +88,8 @@ public class FragmentManager {
             // Set custom model data for resource packs
             meta.setCustomModelData(1000 + (getGodIndex(normalizedGodType) * 10) + fragmentNumber);
             
+            ItemIdentity.stamp(meta, identityKey, ItemIdentity.Kind.FRAGMENT, GodTypes.indexOf(normalizedGodType), fragmentNumber);
+            
             fragment.setItemMeta(meta);
         }
         
@@ -91,56 +97,69 @@ public class FragmentManager {
     }
     
     /**
-     * Validates if an item is a testament fragment
+     * Identifies a fragment item in one read
+     * Fragments made before identities were stamped are recognised by name instead.
+     * @return the fragment's identity, or null if the item is not a fragment
      */
-    public boolean isTestamentFragment(ItemStack item) {
+    public ItemIdentity identifyFragment(ItemStack item) {
         if (item == null || item.getType() != Material.ECHO_SHARD) {
-            return false;
+            return null;
         }
         
-        ItemMeta meta = item.getItemMeta();
-        if (meta == null || !meta.hasDisplayName()) {
-            return false;
+        ItemIdentity identity = ItemIdentity.read(item, identityKey);
+        if (identity != null) {
+            return identity.getKind() == ItemIdentity.Kind.FRAGMENT ? identity : null;
         }
-        
-        String displayName = meta.getDisplayName();
-        return displayName.contains("Fragment of") && displayName.contains("Testament");
+        return identifyLegacyFragment(item);
+    }
+    
+    /**
+     * Validates if an item is a testament fragment
+     */
+    public boolean isTestamentFragment(ItemStack item) {
+        return identifyFragment(item) != null;
     }
     
     /**
      * Gets the god type from a fragment item
      */
     public String getGodTypeFromFragment(ItemStack fragment) {
-        if (!isTestamentFragment(fragment)) {
-            return null;
-        }
-        
-        ItemMeta meta = fragment.getItemMeta();
-        String displayName = meta.getDisplayName();
-        
-        for (String godType : godColors.keySet()) {
-            if (displayName.toLowerCase().contains(godType)) {
-                return godType;
-            }
-        }
-        
-        return null;
+        ItemIdentity identity = identifyFragment(fragment);
+        return identity != null ? GodTypes.nameOf(identity.getGodIndex()) : null;
     }
     
     /**
      * Gets the fragment number from a fragment item
      */
     public int getFragmentNumber(ItemStack fragment) {
-        if (!isTestamentFragment(fragment)) {
-            return -1;
+        ItemIdentity identity = identifyFragment(fragment);
+        return identity != null && identity.getFragmentNumber() > 0 ? identity.getFragmentNumber() : -1;
+    }
+    
+    /**
+     * Decodes a fragment from its display name and enchantment level
+     */
+    private ItemIdentity identifyLegacyFragment(ItemStack item) {
+        ItemMeta meta = item.getItemMeta();
+        if (meta == null || !meta.hasDisplayName()) {
+            return null;
         }
         
-        ItemMeta meta = fragment.getItemMeta();
-        if (meta == null || !meta.hasEnchants()) {
-            return -1;
+        String displayName = meta.getDisplayName();
+        if (!displayName.contains("Fragment of") || !displayName.contains("Testament")) {
+            return null;
         }
         
-        return meta.getEnchantLevel(Enchantment.UNBREAKING);
+        int godIndex = -1;
+        String lowerName = displayName.toLowerCase();
+        for (String godType : godColors.keySet()) {
+            if (lowerName.contains(godType)) {
+                godIndex = GodTypes.indexOf(godType);
+                break;
+            }
+        }
+        int fragmentNumber = meta.hasEnchants() ? meta.getEnchantLevel(Enchantment.UNBREAKING) : 0;
+        return new ItemIdentity(ItemIdentity.Kind.FRAGMENT, godIndex, fragmentNumber, 0L);
     }
     
     /**
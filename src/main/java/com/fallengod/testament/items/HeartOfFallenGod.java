@@ -3,6 +3,7 @@ package com.fallengod.testament.items;
 import java.util.Arrays;
 
 import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
@@ -15,9 +16,11 @@ import com.fallengod.testament.FallenGodPlugin;
 public class HeartOfFallenGod {
     
     private final FallenGodPlugin plugin;
+    private final NamespacedKey identityKey;
     
     public HeartOfFallenGod(FallenGodPlugin plugin) {
         this.plugin = plugin;
+        this.identityKey = ItemIdentity.key(plugin);
     }
     
     /**
@@ -44,6 +47,7 @@ public class HeartOfFallenGod {
             
             meta.addEnchant(Enchantment.UNBREAKING, 10, true);
             meta.setCustomModelData(9999);
+            ItemIdentity.stamp(meta, identityKey, ItemIdentity.Kind.HEART, -1, 0);
             
             heart.setItemMeta(meta);
         }
@@ -75,6 +79,7 @@ public class HeartOfFallenGod {
             
             meta.addEnchant(Enchantment.UNBREAKING, 10, true);
             meta.setCustomModelData(9998);
+            ItemIdentity.stamp(meta, identityKey, ItemIdentity.Kind.VEIL, -1, 0);
             
             veil.setItemMeta(meta);
         }
@@ -90,6 +95,12 @@ public class HeartOfFallenGod {
             return false;
         }
         
+        ItemIdentity identity = ItemIdentity.read(item, identityKey);
+        if (identity != null) {
+            return identity.getKind() == ItemIdentity.Kind.HEART;
+        }
+        
+        // Hearts made before identities were stamped
         ItemMeta meta = item.getItemMeta();
         return meta != null && meta.hasDisplayName() && 
                meta.getDisplayName().contains("Heart of the Fallen God");
@@ -103,6 +114,12 @@ public class HeartOfFallenGod {
             return false;
         }
         
+        ItemIdentity identity = ItemIdentity.read(item, identityKey);
+        if (identity != null) {
+            return identity.getKind() == ItemIdentity.Kind.VEIL;
+        }
+        
+        // Veils made before identities were stamped
         ItemMeta meta = item.getItemMeta();
         return meta != null && meta.hasDisplayName() && 
                meta.getDisplayName().contains("Veil of Nullification");
@@ -0,0 +1,110 @@
+package com.fallengod.testament.items;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * What a plugin item is, as stamped in its persistent data
+ *
+ * Stored under one namespaced key as two longs: a header holding the format
+ * version, kind, god index and fragment number, then an issue id that tells
+ * apart separately created Hearts and Veils. Reading goes through
+ * the item's persistent data view, so no ItemMeta is cloned, and renaming the
+ * item in an anvil does not change what it is.
+ */
+public final class ItemIdentity {
+
+    /**
+     * Kinds of plugin item; the ordinal is what gets stored, so only append
+     */
+    public enum Kind {
+        FRAGMENT,
+        HEART,
+        VEIL
+    }
+
+    private static final int VERSION = 1;
+    private static final Kind[] KINDS = Kind.values();
+
+    private final Kind kind;
+    private final int godIndex;
+    private final int fragmentNumber;
+    private final long issueId;
+
+    public ItemIdentity(Kind kind, int godIndex, int fragmentNumber, long issueId) {
+        this.kind = kind;
+        this.godIndex = godIndex;
+        this.fragmentNumber = fragmentNumber;
+        this.issueId = issueId;
+    }
+
+    /**
+     * Gets the key identities are stored under
+     */
+    public static NamespacedKey key(Plugin plugin) {
+        return new NamespacedKey(plugin, "item");
+    }
+
+    /**
+     * Stamps a new identity onto item meta
+     * Hearts and Veils get a fresh issue id; fragments get 0 so that copies of
+     * the same fragment stay similar and keep stacking.
+     * @param godIndex GodTypes index, -1 for items without a god
+     * @param fragmentNumber 1-7, 0 for items that are not fragments
+     */
+    public static void stamp(ItemMeta meta, NamespacedKey key, Kind kind, int godIndex, int fragmentNumber) {
+        long header = (long) VERSION << 24 | kind.ordinal() << 16 | (godIndex & 0xFF) << 8 | (fragmentNumber & 0xFF);
+        long issueId = kind == Kind.FRAGMENT ? 0L : ThreadLocalRandom.current().nextLong();
+        meta.getPersistentDataContainer().set(key, PersistentDataType.LONG_ARRAY, new long[] {header, issueId});
+    }
+
+    /**
+     * Reads an item's identity, or null if it has none (or one from a newer format)
+     */
+    public static ItemIdentity read(ItemStack item, NamespacedKey key) {
+        if (item == null) {
+            return null;
+        }
+        long[] record = item.getPersistentDataContainer().get(key, PersistentDataType.LONG_ARRAY);
+        if (record == null || record.length < 2 || (record[0] >>> 24 & 0xFF) != VERSION) {
+            return null;
+        }
+
+        long header = record[0];
+        int kindOrdinal = (int) (header >>> 16 & 0xFF);
+        if (kindOrdinal >= KINDS.length) {
+            return null;
+        }
+        return new ItemIdentity(KINDS[kindOrdinal], (byte) (header >>> 8), (int) (header & 0xFF), record[1]);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the GodTypes index, -1 for items without a god
+     */
+    public int getGodIndex() {
+        return godIndex;
+    }
+
+    /**
+     * Gets the fragment number (1-7), 0 for items that are not fragments
+     */
+    public int getFragmentNumber() {
+        return fragmentNumber;
+    }
+
+    /**
+     * Gets the id given when the item was created, 0 for fragments and items from before identities
+     */
+    public long getIssueId() {
+        return issueId;
+    }
+}
@@ -1,9 +1,11 @@
 package com.fallengod.testament.services;
 
 import com.fallengod.testament.FallenGodPlugin;
+import com.fallengod.testament.data.GodTypes;
 import com.fallengod.testament.data.PlayerTestamentData;
 import com.fallengod.testament.data.PlayerTestamentDataStore;
 import com.fallengod.testament.items.FragmentManager;
+import com.fallengod.testament.items.ItemIdentity;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
@@ -68,15 +70,7 @@ public class TestamentService {
         PlayerTestamentData data = dataStore.get(player.getUniqueId());
         
         // Check if player has all 7 unique fragments
-        Set<Integer> playerFragments = data.getFragmentsFound(godType);
-        boolean hasAllFragments = playerFragments.size() == 7;
-        
-        for (int i = 1; i <= 7; i++) {
-            if (!playerFragments.contains(i)) {
-                hasAllFragments = false;
-                break;
-            }
-        }
+        boolean hasAllFragments = data.getFragmentCount(godType) == 7;
         
         if (hasAllFragments && !data.isTestamentCompleted(godType)) {
             // Remove fragments from inventory
@@ -93,7 +87,7 @@ public class TestamentService {
             
             // Save progress
             try {
-                dataStore.save();
+                dataStore.save(player.getUniqueId());
             } catch (Exception e) {
                 logger.warning("Failed to save testament completion for " + player.getName() + ": " + e.getMessage());
             }
@@ -112,9 +106,30 @@ public class TestamentService {
      * Removes all fragments of a specific god type from player inventory
      */
     private void removeFragmentsFromInventory(Player player, String godType) {
-        for (int i = 1; i <= 7; i++) {
-            ItemStack fragment = fragmentManager.createFragment(godType, i);
-            player.getInventory().removeItem(fragment);
+        int godIndex = GodTypes.indexOf(godType);
+        int remaining = (1 << 7) - 1;
+        ItemStack[] contents = player.getInventory().getContents();
+        
+        // Take one of each fragment number, matched by identity rather than item equality
+        for (int slot = 0; slot < contents.length && remaining != 0; slot++) {
+            ItemIdentity fragment = fragmentManager.identifyFragment(contents[slot]);
+            if (fragment == null || fragment.getGodIndex() != godIndex
+                || fragment.getFragmentNumber() < 1 || fragment.getFragmentNumber() > 7) {
+                continue;
+            }
+            
+            int bit = 1 << (fragment.getFragmentNumber() - 1);
+            if ((remaining & bit) == 0) {
+                continue;
+            }
+            remaining &= ~bit;
+            
+            ItemStack item = contents[slot];
+            if (item.getAmount() > 1) {
+                item.setAmount(item.getAmount() - 1);
+            } else {
+                player.getInventory().setItem(slot, null);
+            }
         }
     }
     
@@ -125,19 +140,23 @@ public class TestamentService {
         UUID playerId = player.getUniqueId();
         PlayerTestamentData data = dataStore.get(playerId);
         
+        // Scan inventory for fragments once, decoding each item a single time
+        int[] masks = new int[GodTypes.COUNT];
+        for (ItemStack item : player.getInventory().getContents()) {
+            ItemIdentity fragment = fragmentManager.identifyFragment(item);
+            if (fragment != null && fragment.getGodIndex() >= 0 && fragment.getGodIndex() < GodTypes.COUNT
+                && fragment.getFragmentNumber() >= 1 && fragment.getFragmentNumber() <= 7) {
+                masks[fragment.getGodIndex()] |= 1 << (fragment.getFragmentNumber() - 1);
+            }
+        }
+        
         // Clear current data and rebuild from inventory
         for (String godType : fragmentManager.getValidGodTypes()) {
             data.clearFragments(godType);
-            
-            // Scan inventory for fragments
-            for (ItemStack item : player.getInventory().getContents()) {
-                if (item != null && fragmentManager.isTestamentFragment(item)) {
-                    String fragmentGodType = fragmentManager.getGodTypeFromFragment(item);
-                    int fragmentNumber = fragmentManager.getFragmentNumber(item);
-                    
-                    if (godType.equals(fragmentGodType) && fragmentNumber >= 1 && fragmentNumber <= 7) {
-                        data.addFragment(godType, fragmentNumber);
-                    }
+            int mask = masks[GodTypes.indexOf(godType)];
+            for (int fragmentNumber = 1; fragmentNumber <= 7; fragmentNumber++) {
+                if ((mask & (1 << (fragmentNumber - 1))) != 0) {
+                    data.addFragment(godType, fragmentNumber);
                 }
             }
             
@@ -189,7 +208,7 @@ public class TestamentService {
     }
     
     /**
-     * Gets the specific fragments a player has found for a god
+     * Gets the specific fragments a player has found for a god (read-only view)
      */
     public Set<Integer> getFragmentsFound(Player player, String godType) {
         return dataStore.get(player.getUniqueId()).getFragmentsFound(godType);